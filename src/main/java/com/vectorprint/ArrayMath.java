@@ -0,0 +1,166 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Element wise operations on float arrays, for example coordinates. When the jvm is started with
+ * <code>--add-modules jdk.incubator.vector</code> the operations use the Vector API (SIMD), otherwise plain loops. Set
+ * the system property vectorprint.vector to false to force plain loops. Because lanes are summed in a different order
+ * the result of {@link #sum(float[]) } may differ in the last bits between the two.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public class ArrayMath {
+
+   private ArrayMath() {
+   }
+
+   private static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+           && Boolean.parseBoolean(System.getProperty("vectorprint.vector", "true"));
+
+   /**
+    * @return true when the Vector API is used
+    */
+   public static boolean isVectorized() {
+      return VECTORIZED;
+   }
+
+   /**
+    * multiply all values, in place
+    *
+    * @param values
+    * @param factor
+    */
+   public static void scale(float[] values, float factor) {
+      if (values == null) {
+         return;
+      }
+      if (VECTORIZED) {
+         VectorArrayMath.scale(values, factor);
+      } else {
+         scaleScalar(values, factor);
+      }
+   }
+
+   /**
+    * add to all values, in place
+    *
+    * @param values
+    * @param offset
+    */
+   public static void translate(float[] values, float offset) {
+      if (values == null) {
+         return;
+      }
+      if (VECTORIZED) {
+         VectorArrayMath.translate(values, offset);
+      } else {
+         translateScalar(values, offset);
+      }
+   }
+
+   /**
+    * multiply and then add to all values, in place
+    *
+    * @param values
+    * @param factor
+    * @param offset
+    */
+   public static void scaleAndTranslate(float[] values, float factor, float offset) {
+      if (values == null) {
+         return;
+      }
+      if (VECTORIZED) {
+         VectorArrayMath.scaleAndTranslate(values, factor, offset);
+      } else {
+         scaleAndTranslateScalar(values, factor, offset);
+      }
+   }
+
+   /**
+    * @param values
+    * @return the smallest value, {@link Float#POSITIVE_INFINITY} for an empty array, NaN when a value is NaN
+    * @throws NullPointerException when values is null
+    */
+   public static float min(float[] values) {
+      return VECTORIZED ? VectorArrayMath.min(values) : minScalar(values);
+   }
+
+   /**
+    * @param values
+    * @return the largest value, {@link Float#NEGATIVE_INFINITY} for an empty array, NaN when a value is NaN
+    * @throws NullPointerException when values is null
+    */
+   public static float max(float[] values) {
+      return VECTORIZED ? VectorArrayMath.max(values) : maxScalar(values);
+   }
+
+   /**
+    * @param values
+    * @return the sum of the values
+    * @throws NullPointerException when values is null
+    */
+   public static float sum(float[] values) {
+      return VECTORIZED ? VectorArrayMath.sum(values) : sumScalar(values);
+   }
+
+   static void scaleScalar(float[] values, float factor) {
+      for (int i = 0; i < values.length; i++) {
+         values[i] *= factor;
+      }
+   }
+
+   static void translateScalar(float[] values, float offset) {
+      for (int i = 0; i < values.length; i++) {
+         values[i] += offset;
+      }
+   }
+
+   static void scaleAndTranslateScalar(float[] values, float factor, float offset) {
+      for (int i = 0; i < values.length; i++) {
+         values[i] = values[i] * factor + offset;
+      }
+   }
+
+   static float minScalar(float[] values) {
+      float min = Float.POSITIVE_INFINITY;
+      for (float v : values) {
+         min = Math.min(min, v);
+      }
+      return min;
+   }
+
+   static float maxScalar(float[] values) {
+      float max = Float.NEGATIVE_INFINITY;
+      for (float v : values) {
+         max = Math.max(max, v);
+      }
+      return max;
+   }
+
+   static float sumScalar(float[] values) {
+      float sum = 0;
+      for (float v : values) {
+         sum += v;
+      }
+      return sum;
+   }
+}
@@ -0,0 +1,192 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread safe cache in front of a {@link StringConverter}, useful for converters that do expensive work for
+ * values that are repeated often, like {@link StringConverter.ColorParser}, {@link StringConverter.RegexParser}, {@link StringConverter.ClassParser}
+ * and {@link StringConverter.URLParser}. Only successful, non null results are cached, the results should be
+ * immutable. Note that a cached result is not recomputed, for example a URL for a file that no longer exists is still
+ * returned.
+ * <pre>
+ * StringConverter&lt;Color&gt; colors = new CachingConverter&lt;&gt;(StringConverter.COLOR_PARSER, 500);
+ * </pre>
+ * The cache is split in segments that each hold a least recently used map guarded by its own lock, so threads
+ * converting different values rarely wait on each other.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ * @param <T>
+ */
+public class CachingConverter<T> implements StringConverter<T> {
+
+   private static final int SEGMENTS = 16;
+
+   private final StringConverter<T> delegate;
+   private final List<Segment<T>> segments;
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   /**
+    *
+    * @param delegate the converter doing the actual work
+    * @param maximumSize the maximum number of cached values, divided over at most 16 segments
+    */
+   public CachingConverter(StringConverter<T> delegate, int maximumSize) {
+      if (maximumSize < 1) {
+         throw new IllegalArgumentException("maximumSize should be positive: " + maximumSize);
+      }
+      this.delegate = delegate;
+      int count = Math.min(SEGMENTS, maximumSize);
+      List<Segment<T>> s = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+         // the segment sizes add up to maximumSize
+         s.add(new Segment<>(maximumSize / count + (i < maximumSize % count ? 1 : 0), evictions));
+      }
+      segments = List.copyOf(s);
+   }
+
+   private Segment<T> segment(String val) {
+      int h = val.hashCode();
+      return segments.get(Math.floorMod(h ^ (h >>> 16), segments.size()));
+   }
+
+   @Override
+   public T convert(String val) {
+      if (val == null) {
+         return delegate.convert(val);
+      }
+      Segment<T> segment = segment(val);
+      T t = segment.get(val);
+      if (t != null) {
+         hits.increment();
+         return t;
+      }
+      misses.increment();
+      t = delegate.convert(val);
+      if (t != null) {
+         segment.put(val, t);
+      }
+      return t;
+   }
+
+   @Override
+   public Result<T> tryConvert(String val) {
+      if (val == null) {
+         return delegate.tryConvert(val);
+      }
+      Segment<T> segment = segment(val);
+      T t = segment.get(val);
+      if (t != null) {
+         hits.increment();
+         return Result.success(t);
+      }
+      misses.increment();
+      Result<T> r = delegate.tryConvert(val);
+      if (r.isSuccess() && r.value() != null) {
+         segment.put(val, r.value());
+      }
+      return r;
+   }
+
+   /**
+    * remove all cached values, statistics are kept
+    */
+   public void clear() {
+      for (Segment<T> s : segments) {
+         s.clear();
+      }
+   }
+
+   public int size() {
+      int size = 0;
+      for (Segment<T> s : segments) {
+         size += s.size();
+      }
+      return size;
+   }
+
+   public Stats stats() {
+      return new Stats(hits.sum(), misses.sum(), evictions.sum(), size());
+   }
+
+   /**
+    * Snapshot of the statistics of a cache
+    *
+    * @param hits
+    * @param misses
+    * @param evictions
+    * @param size
+    */
+   public record Stats(long hits, long misses, long evictions, int size) {
+
+      /**
+       * @return the fraction of lookups served from the cache, 0 when nothing was looked up
+       */
+      public double hitRate() {
+         long total = hits + misses;
+         return total == 0 ? 0 : (double) hits / total;
+      }
+   }
+
+   /**
+    * least recently used map guarded by the lock of the segment
+    */
+   private static class Segment<T> {
+
+      private final Map<String, T> map;
+
+      private Segment(int maximumSize, LongAdder evictions) {
+         map = new LinkedHashMap<>(Math.min(maximumSize, 64), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+               if (size() > maximumSize) {
+                  evictions.increment();
+                  return true;
+               }
+               return false;
+            }
+         };
+      }
+
+      private synchronized T get(String key) {
+         return map.get(key);
+      }
+
+      private synchronized void put(String key, T value) {
+         map.put(key, value);
+      }
+
+      private synchronized void clear() {
+         map.clear();
+      }
+
+      private synchronized int size() {
+         return map.size();
+      }
+   }
+}
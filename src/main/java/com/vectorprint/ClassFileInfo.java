@@ -0,0 +1,210 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The header of a class file: name, access flags, superclass, interfaces and class annotations, read with a minimal
+ * constant pool reader, so without loading the class. Names are binary names like java.lang.Object, see {@link Class#getName()
+ * }.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ * @param name
+ * @param access the access flags, see {@link Modifier}
+ * @param superName null for java.lang.Object and modules
+ * @param interfaces
+ * @param annotations the annotation types on the class, with runtime and class retention, not inherited ones.
+ * Repeated annotations show up as their container.
+ */
+public record ClassFileInfo(String name, int access, String superName, List<String> interfaces, List<String> annotations) {
+
+   private static final int MAGIC = 0xCAFEBABE;
+   private static final int ACC_ANNOTATION = 0x2000;
+
+   public boolean isInterface() {
+      return Modifier.isInterface(access);
+   }
+
+   public boolean isAbstract() {
+      return Modifier.isAbstract(access);
+   }
+
+   public boolean isAnnotation() {
+      return (access & ACC_ANNOTATION) != 0;
+   }
+
+   /**
+    * @param annotation
+    * @return true when the class is annotated with the annotation
+    */
+   public boolean hasAnnotation(Class<? extends Annotation> annotation) {
+      return annotations.contains(annotation.getName());
+   }
+
+   /**
+    * @return the package name, empty for the unnamed package
+    */
+   public String packageName() {
+      int dot = name.lastIndexOf('.');
+      return dot < 0 ? "" : name.substring(0, dot);
+   }
+
+   /**
+    * @param classFile
+    * @return
+    * @throws IOException when the bytes are not a valid class file
+    */
+   public static ClassFileInfo read(byte[] classFile) throws IOException {
+      return read(new ByteArrayInputStream(classFile));
+   }
+
+   /**
+    * reads the header of a class file, the stream is not closed
+    *
+    * @param in
+    * @return
+    * @throws IOException when the stream does not contain a valid class file
+    */
+   public static ClassFileInfo read(InputStream in) throws IOException {
+      DataInputStream data = in instanceof DataInputStream d ? d : new DataInputStream(in);
+      if (data.readInt() != MAGIC) {
+         throw new IOException("not a class file");
+      }
+      data.readUnsignedShort(); // minor
+      data.readUnsignedShort(); // major
+      String[] utf8 = new String[data.readUnsignedShort()];
+      int[] classes = new int[utf8.length];
+      for (int i = 1; i < utf8.length; i++) {
+         int tag = data.readUnsignedByte();
+         switch (tag) {
+            case 1 ->
+               utf8[i] = data.readUTF();
+            case 7 ->
+               classes[i] = data.readUnsignedShort();
+            case 8, 16, 19, 20 ->
+               data.skipNBytes(2);
+            case 15 ->
+               data.skipNBytes(3);
+            case 3, 4, 9, 10, 11, 12, 17, 18 ->
+               data.skipNBytes(4);
+            case 5, 6 -> {
+               data.skipNBytes(8);
+               // takes two entries
+               i++;
+            }
+            default ->
+               throw new IOException(String.format("unknown constant pool tag %d at %d", tag, i));
+         }
+      }
+      int access = data.readUnsignedShort();
+      String name = className(utf8, classes, data.readUnsignedShort());
+      String superName = className(utf8, classes, data.readUnsignedShort());
+      int count = data.readUnsignedShort();
+      List<String> interfaces = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+         interfaces.add(className(utf8, classes, data.readUnsignedShort()));
+      }
+      skipMembers(data); // fields
+      skipMembers(data); // methods
+      List<String> annotations = new ArrayList<>(2);
+      for (int i = data.readUnsignedShort(); i > 0; i--) {
+         String attribute = utf8(utf8, data.readUnsignedShort());
+         int length = data.readInt();
+         if ("RuntimeVisibleAnnotations".equals(attribute) || "RuntimeInvisibleAnnotations".equals(attribute)) {
+            for (int a = data.readUnsignedShort(); a > 0; a--) {
+               String descriptor = utf8(utf8, data.readUnsignedShort());
+               // Lcom/example/Annotation;
+               annotations.add(descriptor.substring(1, descriptor.length() - 1).replace('/', '.'));
+               skipElementValuePairs(data);
+            }
+         } else {
+            data.skipNBytes(length);
+         }
+      }
+      return new ClassFileInfo(name, access, superName, Collections.unmodifiableList(interfaces),
+          Collections.unmodifiableList(annotations));
+   }
+
+   private static void skipMembers(DataInputStream data) throws IOException {
+      for (int i = data.readUnsignedShort(); i > 0; i--) {
+         // access, name, descriptor
+         data.skipNBytes(6);
+         for (int a = data.readUnsignedShort(); a > 0; a--) {
+            data.skipNBytes(2);
+            data.skipNBytes(Integer.toUnsignedLong(data.readInt()));
+         }
+      }
+   }
+
+   private static void skipElementValuePairs(DataInputStream data) throws IOException {
+      for (int p = data.readUnsignedShort(); p > 0; p--) {
+         data.skipNBytes(2);
+         skipElementValue(data);
+      }
+   }
+
+   private static void skipElementValue(DataInputStream data) throws IOException {
+      int tag = data.readUnsignedByte();
+      switch (tag) {
+         case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' ->
+            data.skipNBytes(2);
+         case 'e' ->
+            data.skipNBytes(4);
+         case '@' -> {
+            data.skipNBytes(2);
+            skipElementValuePairs(data);
+         }
+         case '[' -> {
+            for (int i = data.readUnsignedShort(); i > 0; i--) {
+               skipElementValue(data);
+            }
+         }
+         default ->
+            throw new IOException("unknown element value tag " + (char) tag);
+      }
+   }
+
+   private static String utf8(String[] utf8, int index) throws IOException {
+      if (index <= 0 || index >= utf8.length || utf8[index] == null) {
+         throw new IOException("invalid utf8 reference " + index);
+      }
+      return utf8[index];
+   }
+
+   private static String className(String[] utf8, int[] classes, int index) throws IOException {
+      if (index == 0) {
+         return null;
+      }
+      if (index >= classes.length || classes[index] == 0 || utf8[classes[index]] == null) {
+         throw new IOException("invalid class reference " + index);
+      }
+      return utf8[classes[index]].replace('/', '.');
+   }
+}
@@ -21,28 +21,49 @@ package com.vectorprint;
  * #L%
  */
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
-import java.net.URL;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  *
@@ -50,6 +71,8 @@ import java.util.stream.IntStream;
  */
 public class ClassHelper {
 
+   private static final Logger LOGGER = LoggerFactory.getLogger(ClassHelper.class);
+
    private ClassHelper() {
    }
 
@@ -74,43 +97,235 @@ public class ClassHelper {
    }
 
    /**
-    * looks for classes in a package either in {@link #getFromDirectory(File, String, ClassLoader)}  or
-    * in {@link #getFromJARFile(String, String, ClassLoader)} .
+    * looks for classes directly in a package, calls {@link #getClasses(java.lang.ClassLoader, java.lang.String, boolean)
+    * } without sub packages.
     *
     * @param loader
     * @param packageName
     * @return
     */
    public static Set<Class<?>> getClasses(ClassLoader loader, String packageName) {
-      Set<Class<?>> classes = new HashSet<>();
-      String path = packageName.replace('.', File.separatorChar);
-      loader.resources(path)
-              .map(URL::getFile)
-              .filter(Objects::nonNull)
-              .forEach(filePath -> {
-                 // WINDOWS HACK
-                 if (filePath.indexOf("%20") > 0) {
-                    filePath = filePath.replace("%20", " ");
-                 }
-                 if ((filePath.indexOf('!') > 0) & (filePath.indexOf(".jar") > 0)) {
-                    String jarPath = filePath.substring(0, filePath.indexOf('!'))
-                            .substring(filePath.indexOf(':') + 1);
-                    // WINDOWS HACK
-                    if (jarPath.indexOf(':') >= 0) {
-                       jarPath = jarPath.substring(1);
-                    }
-                     try {
-                         classes.addAll(getFromJARFile(jarPath, packageName, loader));
-                     } catch (IOException |ClassNotFoundException e) {
-                         throw new VectorPrintRuntimeException(e);
-                     }
-                 } else {
-                    classes.addAll(
-                            getFromDirectory(new File(filePath), packageName, loader));
-                 }
-
-              });
-      return classes;
+      return getClasses(loader, packageName, false);
+   }
+
+   /**
+    * looks for classes in a package in all directories and jars where the loader finds the package. Directories and
+    * jars are both traversed as a {@link FileSystem} (zipfs for jars), class files are loaded in parallel.
+    *
+    * @param loader
+    * @param packageName
+    * @param subPackages when true also look in sub packages
+    * @return
+    */
+   public static Set<Class<?>> getClasses(ClassLoader loader, String packageName, boolean subPackages) {
+      Set<Class<?>> classes = ConcurrentHashMap.newKeySet();
+      forEachPackageRoot(loader, packageName, root
+          -> findClassFiles(root, packageName, subPackages).parallelStream()
+              .forEach(cf -> classes.add(forName(cf.name(), loader))));
+      return new HashSet<>(classes);
+   }
+
+   /**
+    * Builds a {@link ClassHierarchyIndex} for the classes directly in a package, see {@link #getClassIndex(java.lang.ClassLoader, java.lang.String, boolean)
+    * }.
+    *
+    * @param loader
+    * @param packageName
+    * @return
+    */
+   public static ClassHierarchyIndex getClassIndex(ClassLoader loader, String packageName) {
+      return getClassIndex(loader, packageName, false);
+   }
+
+   /**
+    * Builds a {@link ClassHierarchyIndex} for the classes in a package, looking in the same places as {@link #getClasses(java.lang.ClassLoader, java.lang.String, boolean)
+    * }, but reading class file headers instead of loading classes.
+    *
+    * @param loader
+    * @param packageName
+    * @param subPackages when true also look in sub packages
+    * @return
+    */
+   public static ClassHierarchyIndex getClassIndex(ClassLoader loader, String packageName, boolean subPackages) {
+      ClassHierarchyIndex index = new ClassHierarchyIndex();
+      readClassFiles(loader, packageName, subPackages, index::add);
+      return index;
+   }
+
+   /**
+    * Finds the classes directly in a package carrying at least one of the annotations, see {@link #getAnnotatedClasses(java.lang.ClassLoader, java.lang.String, boolean, java.lang.Class...)
+    * }.
+    *
+    * @param loader
+    * @param packageName
+    * @param annotations
+    * @return
+    */
+   @SafeVarargs
+   public static Set<Class<?>> getAnnotatedClasses(ClassLoader loader, String packageName, Class<? extends Annotation>... annotations) {
+      return getAnnotatedClasses(loader, packageName, false, annotations);
+   }
+
+   /**
+    * Finds the classes in a package carrying at least one of the annotations. Class files are filtered on their
+    * annotations before loading, so only matching classes are loaded. Inherited annotations are not found.
+    *
+    * @param loader
+    * @param packageName
+    * @param subPackages when true also look in sub packages
+    * @param annotations
+    * @return
+    */
+   @SafeVarargs
+   public static Set<Class<?>> getAnnotatedClasses(ClassLoader loader, String packageName, boolean subPackages, Class<? extends Annotation>... annotations) {
+      Set<String> names = ConcurrentHashMap.newKeySet();
+      Consumer<ClassFileInfo> filter = info -> {
+         for (Class<? extends Annotation> a : annotations) {
+            if (info.hasAnnotation(a)) {
+               names.add(info.name());
+               return;
+            }
+         }
+      };
+      readClassFiles(loader, packageName, subPackages, filter);
+      return ClassHierarchyIndex.load(names, loader);
+   }
+
+   /**
+    * reads class files in parallel, the consumer should be thread safe
+    */
+   private static void readClassFiles(ClassLoader loader, String packageName, boolean subPackages, Consumer<ClassFileInfo> consumer) {
+      forEachPackageRoot(loader, packageName, root
+          -> findClassFiles(root, packageName, subPackages).parallelStream()
+              .forEach(cf -> consumer.accept(read(cf.path()))));
+   }
+
+   @FunctionalInterface
+   private interface PathConsumer {
+
+      void accept(Path path) throws IOException;
+   }
+
+   /**
+    * A class file found in a package
+    *
+    * @param name binary class name
+    * @param path
+    */
+   record ClassFile(String name, Path path) {
+   }
+
+   /**
+    * calls the consumer with the directory of a package for every directory or jar the loader finds the package in,
+    * paths in a jar are valid during the call
+    */
+   private static void forEachPackageRoot(ClassLoader loader, String packageName, PathConsumer consumer) {
+      String path = packageName.replace('.', '/');
+      loader.resources(path).forEach(url -> {
+         try {
+            URI uri = url.toURI();
+            Path jar = jarOf(uri);
+            if (jar != null) {
+               try (FileSystem fs = FileSystems.newFileSystem(jar)) {
+                  consumer.accept(fs.getPath("/" + path));
+               }
+            } else {
+               consumer.accept(Path.of(uri));
+            }
+         } catch (IOException | URISyntaxException | FileSystemNotFoundException | IllegalArgumentException e) {
+            // IllegalArgumentException and FileSystemNotFoundException for unsupported locations
+            throw new VectorPrintRuntimeException(url.toString(), e);
+         }
+      });
+   }
+
+   /**
+    * @param uri
+    * @return the jar file for a jar:file:/some.jar!/package/path uri, otherwise null
+    * @throws URISyntaxException
+    */
+   static Path jarOf(URI uri) throws URISyntaxException {
+      if (!"jar".equals(uri.getScheme())) {
+         return null;
+      }
+      String spec = uri.getRawSchemeSpecificPart();
+      return Path.of(new URI(spec.substring(0, spec.indexOf("!/"))));
+   }
+
+   /**
+    * @param root the directory of the package
+    * @param packageName
+    * @param subPackages
+    * @return the class files in the package, an empty list when root does not exist
+    * @throws IOException
+    */
+   static List<ClassFile> findClassFiles(Path root, String packageName, boolean subPackages) throws IOException {
+      if (!Files.isDirectory(root)) {
+         return List.of();
+      }
+      try (Stream<Path> files = Files.walk(root, subPackages ? Integer.MAX_VALUE : 1)) {
+         return files
+             .filter(f -> {
+                String name = String.valueOf(f.getFileName());
+                return name.endsWith(".class") && !name.equals("module-info.class") && Files.isRegularFile(f);
+             })
+             .map(f -> {
+                StringBuilder name = new StringBuilder(packageName);
+                for (Path element : root.relativize(f)) {
+                   if (!name.isEmpty()) {
+                      name.append('.');
+                   }
+                   name.append(element);
+                }
+                return new ClassFile(name.substring(0, name.length() - ".class".length()), f);
+             })
+             .toList();
+      }
+   }
+
+   static ClassFileInfo read(Path classFile) {
+      try (InputStream in = new BufferedInputStream(Files.newInputStream(classFile))) {
+         return ClassFileInfo.read(in);
+      } catch (IOException e) {
+         throw new VectorPrintRuntimeException(classFile.toString(), e);
+      }
+   }
+
+   private static Class<?> forName(String name, ClassLoader loader) {
+      try {
+         return Class.forName(name, false, loader);
+      } catch (ClassNotFoundException e) {
+         throw new VectorPrintRuntimeException(e);
+      }
+   }
+
+   /**
+    * reads the headers of the class files of a package in a jar
+    *
+    * @param jar
+    * @param packageName
+    * @param consumer
+    * @throws IOException
+    */
+   public static void readFromJARFile(String jar, String packageName, Consumer<ClassFileInfo> consumer) throws IOException {
+      try (FileSystem fs = FileSystems.newFileSystem(Path.of(jar))) {
+         for (ClassFile cf : findClassFiles(fs.getPath("/" + packageName.replace('.', '/')), packageName, false)) {
+            consumer.accept(read(cf.path()));
+         }
+      }
+   }
+
+   /**
+    * reads the headers of the class files in a directory
+    *
+    * @param directory
+    * @param consumer
+    * @throws IOException
+    */
+   public static void readFromDirectory(File directory, Consumer<ClassFileInfo> consumer) throws IOException {
+      for (ClassFile cf : findClassFiles(directory.toPath(), "", false)) {
+         consumer.accept(read(cf.path()));
+      }
    }
 
    /**
@@ -124,20 +339,11 @@ public class ClassHelper {
     */
    public static Set<Class<?>> getFromJARFile(String jar, String packageName, ClassLoader loader) throws IOException, ClassNotFoundException {
       Set<Class<?>> classes = new HashSet<>(200, 50);
-      JarInputStream jarFile = new JarInputStream(new FileInputStream(jar));
-      JarEntry jarEntry;
-      do {
-         jarEntry = jarFile.getNextJarEntry();
-         if (jarEntry != null) {
-            String className = jarEntry.getName();
-            if (className.endsWith(".class")) {
-               // check package
-               if (className.replace('/', '.').replace(packageName, "").replace(".class", "").lastIndexOf('.') == 0) {
-                  classes.add(Class.forName(className.replace('/', '.').replace(".class", ""), false, loader));
-               }
-            }
+      try (FileSystem fs = FileSystems.newFileSystem(Path.of(jar))) {
+         for (ClassFile cf : findClassFiles(fs.getPath("/" + packageName.replace('.', '/')), packageName, false)) {
+            classes.add(Class.forName(cf.name(), false, loader));
          }
-      } while (jarEntry != null);
+      }
       return classes;
    }
 
@@ -150,17 +356,12 @@ public class ClassHelper {
     */
    public static Set<Class<?>> getFromDirectory(File directory, String packageName, ClassLoader loader) {
       Set<Class<?>> classes = new HashSet<>(200, 50);
-      if (directory.exists()) {
-         Arrays.stream(Objects.requireNonNull(directory.list()))
-                 .filter(file -> file.endsWith(".class"))
-                 .map(file -> packageName + '.' + file.replace(".class", ""))
-                 .forEach(name -> {
-                     try {
-                         classes.add(Class.forName(name, false, loader));
-                     } catch (ClassNotFoundException e) {
-                         throw new VectorPrintRuntimeException(e);
-                     }
-                 });
+      try {
+         for (ClassFile cf : findClassFiles(directory.toPath(), packageName, false)) {
+            classes.add(forName(cf.name(), loader));
+         }
+      } catch (IOException e) {
+         throw new VectorPrintRuntimeException(directory.getPath(), e);
       }
       return classes;
    }
@@ -228,6 +429,21 @@ public class ClassHelper {
       return parameterClasses;
    }
 
+   /**
+    * Like {@link #findParameterClasses(java.lang.Class, java.lang.Class) }, but keeps nested generics, for example
+    * List&lt;Integer&gt; for a parameter instead of List. Uses the cached {@link ResolvedType#of(java.lang.Class) }.
+    *
+    * @param subclass the subclass of the parameterized class whose parameter types we want to know
+    * @param classWithParameter the class that declares the parameters whose types we are looking for
+    * @return the types of the parameters, or null when classWithParameter has no parameters
+    */
+   public static <T> List<ResolvedType> findParameterTypes(Class<? extends T> subclass, Class<T> classWithParameter) {
+      if (classWithParameter.getTypeParameters().length == 0) {
+         return null;
+      }
+      return ResolvedType.of(subclass).getTypeArgumentsOf(classWithParameter);
+   }
+
    public static Class<?> getClass(Type type) {
       return resolveClass(type, Map.of());
    }
@@ -307,4 +523,149 @@ public class ClassHelper {
         }
         return null;
     }
+
+   private static final ClassValue<Map<List<Class<?>>, Optional<MethodHandle>>> HANDLES = new ClassValue<>() {
+      @Override
+      protected Map<List<Class<?>>, Optional<MethodHandle>> computeValue(Class<?> type) {
+         return new ConcurrentHashMap<>(4);
+      }
+   };
+
+   private static final ClassValue<Supplier<?>> SUPPLIERS = new ClassValue<>() {
+      @Override
+      protected Supplier<?> computeValue(Class<?> type) {
+         return createSupplier(type);
+      }
+   };
+
+   /**
+    * find the first declared constructor accepting certain parameters using {@link #findConstructor(java.lang.Class, java.lang.Class...)
+    * } and return a MethodHandle for it, the result is cached per class and parameters. Non public constructors are
+    * made accessible.
+    *
+    * @param clazz
+    * @param parameters
+    * @return a MethodHandle or null
+    */
+   public static MethodHandle findConstructorHandle(Class<?> clazz, Class<?>... parameters) {
+      return HANDLES.get(clazz).computeIfAbsent(List.of(parameters), k -> {
+         Constructor<?> con = findConstructor(clazz, parameters);
+         if (con == null) {
+            return Optional.empty();
+         }
+         try {
+            return Optional.of(MethodHandles.lookup().unreflectConstructor(con));
+         } catch (IllegalAccessException ex) {
+            try {
+               con.setAccessible(true);
+               return Optional.of(MethodHandles.lookup().unreflectConstructor(con));
+            } catch (IllegalAccessException | RuntimeException e) {
+               throw new VectorPrintRuntimeException(e);
+            }
+         }
+      }).orElse(null);
+   }
+
+   /**
+    * Returns a cached factory calling the no argument constructor of a class. When the constructor is accessible,
+    * declares no checked exceptions and the class comes from the class loader of ClassHelper or one of its ancestors,
+    * the factory is generated by {@link LambdaMetafactory}, which is as fast as calling new, otherwise it uses a
+    * MethodHandle. Much faster than {@link Constructor#newInstance(java.lang.Object...)
+    * } for repeated instantiation.
+    *
+    * @param <T>
+    * @param clazz
+    * @return
+    * @throws IllegalArgumentException when there is no no argument constructor
+    */
+   @SuppressWarnings("unchecked")
+   public static <T> Supplier<T> supplier(Class<T> clazz) {
+      return (Supplier<T>) SUPPLIERS.get(clazz);
+   }
+
+   /**
+    * Returns a factory calling the constructor found by {@link #findConstructorHandle(java.lang.Class, java.lang.Class...)
+    * }, the arguments are converted to the parameter types (unboxing included). Checked exceptions from the
+    * constructor are wrapped in a {@link VectorPrintRuntimeException}.
+    *
+    * @param <T>
+    * @param clazz
+    * @param parameters
+    * @return
+    * @throws IllegalArgumentException when no constructor is found
+    */
+   public static <T> Function<Object[], T> instantiator(Class<T> clazz, Class<?>... parameters) {
+      MethodHandle mh = findConstructorHandle(clazz, parameters);
+      if (mh == null) {
+         throw new IllegalArgumentException(String.format("%s has no constructor for %s", clazz, Arrays.toString(parameters)));
+      }
+      MethodHandle spread = mh.asSpreader(Object[].class, parameters.length)
+          .asType(MethodType.methodType(Object.class, Object[].class));
+      return args -> {
+         try {
+            return (T) spread.invokeExact(args);
+         } catch (RuntimeException | Error ex) {
+            throw ex;
+         } catch (Throwable ex) {
+            throw new VectorPrintRuntimeException(ex);
+         }
+      };
+   }
+
+   /**
+    * A class generated by {@link LambdaMetafactory} is defined in the loader of ClassHelper, it only resolves classes
+    * from that loader and its ancestors and it would keep other loaders from being unloaded.
+    */
+   private static boolean isVisible(ClassLoader loader) {
+      if (loader == null) {
+         return true;
+      }
+      for (ClassLoader l = ClassHelper.class.getClassLoader(); l != null; l = l.getParent()) {
+         if (l == loader) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private static Supplier<?> createSupplier(Class<?> clazz) {
+      MethodHandle mh = findConstructorHandle(clazz);
+      if (mh == null) {
+         throw new IllegalArgumentException(clazz + " has no no argument constructor");
+      }
+      Constructor<?> con = findConstructor(clazz);
+      boolean unchecked = Arrays.stream(con.getExceptionTypes())
+          .allMatch(e -> RuntimeException.class.isAssignableFrom(e) || Error.class.isAssignableFrom(e));
+      if (unchecked && Modifier.isPublic(clazz.getModifiers()) && Modifier.isPublic(con.getModifiers())
+          && isVisible(clazz.getClassLoader())) {
+         CallSite site = null;
+         try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                MethodType.methodType(Object.class), lookup.unreflectConstructor(con), MethodType.methodType(clazz));
+         } catch (LambdaConversionException | IllegalAccessException ex) {
+            LOGGER.debug(String.format("using a MethodHandle to instantiate %s", clazz), ex);
+         }
+         if (site != null) {
+            try {
+               return (Supplier<?>) site.getTarget().invokeExact();
+            } catch (RuntimeException | Error ex) {
+               throw ex;
+            } catch (Throwable ex) {
+               // the target of a non capturing lambda only returns the Supplier
+               throw new VectorPrintRuntimeException(ex);
+            }
+         }
+      }
+      MethodHandle generic = mh.asType(MethodType.methodType(Object.class));
+      return () -> {
+         try {
+            return generic.invokeExact();
+         } catch (RuntimeException | Error ex) {
+            throw ex;
+         } catch (Throwable ex) {
+            throw new VectorPrintRuntimeException(ex);
+         }
+      };
+   }
 }
@@ -0,0 +1,175 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index from supertypes to subtypes of scanned classes, built from {@link ClassFileInfo}s so no classes are loaded,
+ * see {@link ClassHelper#getClassIndex(java.lang.ClassLoader, java.lang.String) }. Finding implementations of an
+ * interface is a lookup instead of calling isAssignableFrom for every class. Only relations visible in the scanned
+ * classes are known: a class extending a class that was not scanned is found as subtype of that class, not of its
+ * ancestors. Adding is thread safe.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public class ClassHierarchyIndex {
+
+   private final Map<String, ClassFileInfo> classes = new ConcurrentHashMap<>();
+   private final Map<String, Set<String>> subtypes = new ConcurrentHashMap<>();
+
+   public void add(ClassFileInfo info) {
+      classes.put(info.name(), info);
+      if (info.superName() != null) {
+         subtypes.computeIfAbsent(info.superName(), k -> ConcurrentHashMap.newKeySet()).add(info.name());
+      }
+      for (String i : info.interfaces()) {
+         subtypes.computeIfAbsent(i, k -> ConcurrentHashMap.newKeySet()).add(info.name());
+      }
+   }
+
+   public void addAll(Collection<ClassFileInfo> infos) {
+      infos.forEach(this::add);
+   }
+
+   /**
+    * @param name binary class name
+    * @return the info of a scanned class, or null
+    */
+   public ClassFileInfo get(String name) {
+      return classes.get(name);
+   }
+
+   /**
+    * @return the names of all scanned classes
+    */
+   public Set<String> getClassNames() {
+      return Set.copyOf(classes.keySet());
+   }
+
+   /**
+    * @param name binary name of a class or interface
+    * @return the names of the classes directly extending or implementing it
+    */
+   public Set<String> getDirectSubtypes(String name) {
+      Set<String> s = subtypes.get(name);
+      return s == null ? Set.of() : Set.copyOf(s);
+   }
+
+   /**
+    * @param name binary name of a class or interface
+    * @return the names of all classes and interfaces that extend or implement it, directly or indirectly, sorted
+    */
+   public Set<String> getSubtypes(String name) {
+      Set<String> rv = new TreeSet<>();
+      Deque<String> todo = new ArrayDeque<>(getDirectSubtypes(name));
+      while (!todo.isEmpty()) {
+         String sub = todo.pop();
+         if (rv.add(sub)) {
+            todo.addAll(getDirectSubtypes(sub));
+         }
+      }
+      return rv;
+   }
+
+   /**
+    * @param type
+    * @return see {@link #getSubtypes(java.lang.String) }
+    */
+   public Set<String> getSubtypes(Class<?> type) {
+      return getSubtypes(type.getName());
+   }
+
+   /**
+    * find concrete classes assignable to a type in a package
+    *
+    * @param type
+    * @param packageName the package, null for all packages
+    * @param subPackages when true also look in sub packages
+    * @return the names of non abstract classes, sorted
+    */
+   public Set<String> getImplementations(Class<?> type, String packageName, boolean subPackages) {
+      Set<String> rv = new TreeSet<>();
+      for (String name : getSubtypes(type)) {
+         ClassFileInfo info = classes.get(name);
+         if (info != null && !info.isAbstract() && inPackage(info, packageName, subPackages)) {
+            rv.add(name);
+         }
+      }
+      return rv;
+   }
+
+   private static boolean inPackage(ClassFileInfo info, String packageName, boolean subPackages) {
+      if (packageName == null) {
+         return true;
+      }
+      String p = info.packageName();
+      return p.equals(packageName) || (subPackages && p.startsWith(packageName) && p.length() > packageName.length()
+          && p.charAt(packageName.length()) == '.');
+   }
+
+   /**
+    * @param annotation
+    * @return the names of the scanned classes annotated with the annotation, sorted
+    * @see ClassFileInfo#annotations()
+    */
+   public Set<String> getAnnotated(Class<? extends Annotation> annotation) {
+      Set<String> rv = new TreeSet<>();
+      for (ClassFileInfo info : classes.values()) {
+         if (info.hasAnnotation(annotation)) {
+            rv.add(info.name());
+         }
+      }
+      return rv;
+   }
+
+   /**
+    * load classes found in the index
+    *
+    * @param names
+    * @param loader
+    * @return
+    * @throws VectorPrintRuntimeException when a class cannot be loaded
+    */
+   public static Set<Class<?>> load(Collection<String> names, ClassLoader loader) {
+      Set<Class<?>> rv = new HashSet<>(names.size());
+      for (String name : names) {
+         try {
+            rv.add(Class.forName(name, false, loader));
+         } catch (ClassNotFoundException e) {
+            throw new VectorPrintRuntimeException(e);
+         }
+      }
+      return rv;
+   }
+
+   public int size() {
+      return classes.size();
+   }
+}
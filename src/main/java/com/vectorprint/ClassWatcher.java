@@ -0,0 +1,376 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a live set of the class files in a package, for long running processes that pick up new plugin classes.
+ * Directories are watched with a {@link WatchService}, jars are polled for a changed modification time or size and
+ * then compared entry by entry using the crc of the entries. Each {@link #refresh() } only reads what changed and
+ * reports it as {@link ClassEvent}s to the listeners.
+ * <pre>
+ * ClassWatcher watcher = new ClassWatcher(loader, "com.example.plugins", true);
+ * watcher.addListener(e -&gt; ...);
+ * scheduler.scheduleWithFixedDelay(watcher::refresh, 5, 5, TimeUnit.SECONDS);
+ * </pre>
+ * The directories and jars are the ones the class loader finds the package in at construction. Classes are not
+ * loaded, a plugin host will typically load added or modified classes in a new class loader. When the same class is
+ * found in more than one location the last one read wins.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public class ClassWatcher implements Closeable {
+
+   private static final Logger LOGGER = LoggerFactory.getLogger(ClassWatcher.class);
+
+   /**
+    * A change in the class set
+    *
+    * @param kind
+    * @param name binary class name, derived from the location of the class file
+    * @param info null for {@link Kind#REMOVED}
+    */
+   public record ClassEvent(Kind kind, String name, ClassFileInfo info) {
+
+      public enum Kind {
+         ADDED, MODIFIED, REMOVED
+      }
+   }
+
+   private record Directory(Path path, String packageName) {
+   }
+
+   private record JarState(FileTime modified, long size, Map<String, Long> crcs) {
+   }
+
+   private final String packageName;
+   private final boolean subPackages;
+   private final WatchService watchService;
+   private final Map<WatchKey, Directory> directories = new HashMap<>();
+   private final Map<Path, JarState> jars = new HashMap<>();
+   private final Map<String, ClassFileInfo> classes = new ConcurrentHashMap<>();
+   private final List<Consumer<ClassEvent>> listeners = new CopyOnWriteArrayList<>();
+
+   /**
+    * scans the package, no events are sent for the classes found initially
+    *
+    * @param loader
+    * @param packageName
+    * @param subPackages when true also watch sub packages
+    * @throws IOException
+    */
+   public ClassWatcher(ClassLoader loader, String packageName, boolean subPackages) throws IOException {
+      this.packageName = packageName;
+      this.subPackages = subPackages;
+      watchService = FileSystems.getDefault().newWatchService();
+      try {
+         for (URL url : loader.resources(packageName.replace('.', '/')).toList()) {
+            URI uri = url.toURI();
+            Path jar = ClassHelper.jarOf(uri);
+            if (jar != null) {
+               refreshJar(jar, null);
+            } else if ("file".equals(uri.getScheme())) {
+               register(Path.of(uri), packageName, null);
+            } else {
+               LOGGER.warn(String.format("cannot watch %s", url));
+            }
+         }
+      } catch (URISyntaxException e) {
+         watchService.close();
+         throw new IOException(e);
+      } catch (IOException | RuntimeException e) {
+         watchService.close();
+         throw e;
+      }
+   }
+
+   public void addListener(Consumer<ClassEvent> listener) {
+      listeners.add(listener);
+   }
+
+   public void removeListener(Consumer<ClassEvent> listener) {
+      listeners.remove(listener);
+   }
+
+   /**
+    * @return a snapshot of the current classes by name
+    */
+   public Map<String, ClassFileInfo> getClasses() {
+      return Map.copyOf(classes);
+   }
+
+   public Set<String> getClassNames() {
+      return Set.copyOf(classes.keySet());
+   }
+
+   /**
+    * processes the changes since the previous refresh and sends them to the listeners, with at most one event per
+    * class. A jar that cannot be read, for example because it is still being written, is logged and tried again at
+    * the next refresh.
+    *
+    * @return the changes
+    * @throws IOException when a directory cannot be read, events collected so far are sent to the listeners
+    */
+   public synchronized List<ClassEvent> refresh() throws IOException {
+      // per changed class whether it existed before this refresh
+      Map<String, Boolean> changes = new LinkedHashMap<>();
+      try {
+         for (WatchKey key = watchService.poll(); key != null; key = watchService.poll()) {
+            Directory dir = directories.get(key);
+            if (dir == null) {
+               continue;
+            }
+            for (WatchEvent<?> ev : key.pollEvents()) {
+               if (ev.kind() == StandardWatchEventKinds.OVERFLOW) {
+                  rescan(dir, changes);
+                  continue;
+               }
+               Path child = dir.path().resolve((Path) ev.context());
+               String fileName = String.valueOf(child.getFileName());
+               if (fileName.endsWith(".class")) {
+                  if (!fileName.equals("module-info.class")) {
+                     String name = child(dir.packageName(), fileName.substring(0, fileName.length() - ".class".length()));
+                     if (ev.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        remove(name, changes);
+                     } else if (Files.isRegularFile(child)) {
+                        put(name, child, changes);
+                     }
+                  }
+               } else if (subPackages) {
+                  if (ev.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                     register(child, child(dir.packageName(), fileName), changes);
+                  } else if (ev.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                     unregister(child, changes);
+                  }
+               }
+            }
+            if (!key.reset()) {
+               directories.remove(key);
+            }
+         }
+         for (Path jar : Set.copyOf(jars.keySet())) {
+            try {
+               refreshJar(jar, changes);
+            } catch (IOException e) {
+               LOGGER.warn(String.format("cannot read %s, will retry", jar), e);
+            }
+         }
+      } finally {
+         fire(changes);
+      }
+      return events(changes);
+   }
+
+   private List<ClassEvent> events(Map<String, Boolean> changes) {
+      List<ClassEvent> events = new ArrayList<>(changes.size());
+      changes.forEach((name, existed) -> {
+         ClassFileInfo info = classes.get(name);
+         if (info == null) {
+            if (existed) {
+               events.add(new ClassEvent(ClassEvent.Kind.REMOVED, name, null));
+            }
+         } else {
+            events.add(new ClassEvent(existed ? ClassEvent.Kind.MODIFIED : ClassEvent.Kind.ADDED, name, info));
+         }
+      });
+      return events;
+   }
+
+   private void fire(Map<String, Boolean> changes) {
+      for (ClassEvent e : events(changes)) {
+         listeners.forEach(l -> l.accept(e));
+      }
+   }
+
+   private static String child(String packageName, String name) {
+      return packageName.isEmpty() ? name : packageName + '.' + name;
+   }
+
+   private static String packageOf(String name) {
+      int dot = name.lastIndexOf('.');
+      return dot < 0 ? "" : name.substring(0, dot);
+   }
+
+   private void register(Path dir, String pkg, Map<String, Boolean> changes) throws IOException {
+      directories.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), new Directory(dir, pkg));
+      // files may have been added before the registration
+      for (ClassHelper.ClassFile cf : ClassHelper.findClassFiles(dir, pkg, false)) {
+         put(cf.name(), cf.path(), changes);
+      }
+      if (subPackages) {
+         try (Stream<Path> list = Files.list(dir)) {
+            for (Path sub : list.filter(Files::isDirectory).toList()) {
+               register(sub, child(pkg, String.valueOf(sub.getFileName())), changes);
+            }
+         }
+      }
+   }
+
+   /**
+    * stop watching a deleted directory and its sub directories and remove their classes
+    */
+   private void unregister(Path dir, Map<String, Boolean> changes) {
+      for (Iterator<Map.Entry<WatchKey, Directory>> it = directories.entrySet().iterator(); it.hasNext();) {
+         Map.Entry<WatchKey, Directory> e = it.next();
+         if (e.getValue().path().startsWith(dir)) {
+            e.getKey().cancel();
+            it.remove();
+            String pkg = e.getValue().packageName();
+            for (String name : Set.copyOf(classes.keySet())) {
+               if (packageOf(name).equals(pkg)) {
+                  remove(name, changes);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * after an overflow events may be lost, compare the directory with the classes and directories known
+    */
+   private void rescan(Directory dir, Map<String, Boolean> changes) throws IOException {
+      Set<String> found = new HashSet<>();
+      for (ClassHelper.ClassFile cf : ClassHelper.findClassFiles(dir.path(), dir.packageName(), false)) {
+         found.add(cf.name());
+         put(cf.name(), cf.path(), changes);
+      }
+      for (String name : Set.copyOf(classes.keySet())) {
+         if (!found.contains(name) && packageOf(name).equals(dir.packageName())) {
+            remove(name, changes);
+         }
+      }
+      if (subPackages) {
+         Set<Path> watched = new HashSet<>();
+         for (Directory d : directories.values()) {
+            watched.add(d.path());
+         }
+         try (Stream<Path> list = Files.list(dir.path())) {
+            for (Path sub : list.filter(Files::isDirectory).toList()) {
+               if (!watched.contains(sub)) {
+                  register(sub, child(dir.packageName(), String.valueOf(sub.getFileName())), changes);
+               }
+            }
+         }
+         for (Path p : watched) {
+            if (!p.equals(dir.path()) && p.startsWith(dir.path()) && !Files.isDirectory(p)) {
+               unregister(p, changes);
+            }
+         }
+      }
+   }
+
+   private void refreshJar(Path jar, Map<String, Boolean> changes) throws IOException {
+      JarState previous = jars.get(jar);
+      Map<String, Long> before = previous == null ? Map.of() : previous.crcs();
+      BasicFileAttributes attributes;
+      try {
+         attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+      } catch (NoSuchFileException e) {
+         before.keySet().forEach(name -> remove(name, changes));
+         // keep polling, the jar may be redeployed
+         jars.put(jar, new JarState(null, -1, Map.of()));
+         return;
+      }
+      if (previous != null && attributes.lastModifiedTime().equals(previous.modified()) && previous.size() == attributes.size()) {
+         return;
+      }
+      Map<String, Long> crcs = new HashMap<>();
+      try (FileSystem fs = FileSystems.newFileSystem(jar)) {
+         for (ClassHelper.ClassFile cf : ClassHelper.findClassFiles(fs.getPath("/" + packageName.replace('.', '/')), packageName, subPackages)) {
+            Long crc = (Long) Files.getAttribute(cf.path(), "zip:crc");
+            crcs.put(cf.name(), crc);
+            if (!crc.equals(before.get(cf.name()))) {
+               put(cf.name(), cf.path(), changes);
+            }
+         }
+      }
+      for (String name : before.keySet()) {
+         if (!crcs.containsKey(name)) {
+            remove(name, changes);
+         }
+      }
+      jars.put(jar, new JarState(attributes.lastModifiedTime(), attributes.size(), crcs));
+   }
+
+   private void put(String name, Path classFile, Map<String, Boolean> changes) {
+      ClassFileInfo info;
+      try {
+         info = ClassHelper.read(classFile);
+      } catch (VectorPrintRuntimeException e) {
+         // possibly still being written, a next modification event follows
+         LOGGER.debug(String.format("skipping %s", classFile), e);
+         return;
+      }
+      if (changes != null) {
+         changes.putIfAbsent(name, classes.containsKey(name));
+      }
+      classes.put(name, info);
+   }
+
+   private void remove(String name, Map<String, Boolean> changes) {
+      if (changes != null && classes.containsKey(name)) {
+         changes.putIfAbsent(name, true);
+      }
+      classes.remove(name);
+   }
+
+   /**
+    * stops watching directories
+    *
+    * @throws IOException
+    */
+   @Override
+   public void close() throws IOException {
+      watchService.close();
+   }
+}
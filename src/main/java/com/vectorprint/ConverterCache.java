@@ -0,0 +1,176 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Composes and caches converters for enums, arrays, Lists and Maps, see {@link StringConverter#forType(java.lang.reflect.Type)
+ * }. Types are resolved once, after that a converter is a lookup. Converters for classes are kept in a {@link ClassValue},
+ * so they do not keep class loaders alive, converters for generic types are kept in a small LRU cache. Elements, keys
+ * and values cannot be arrays, Lists or Maps themselves, separators do not nest.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+final class ConverterCache {
+
+   private ConverterCache() {
+   }
+
+   private static final int MAX_GENERIC = 256;
+
+   private static final ClassValue<StringConverter<?>> BY_CLASS = new ClassValue<>() {
+      @Override
+      protected StringConverter<?> computeValue(Class<?> type) {
+         return compose(type);
+      }
+   };
+
+   private static final Map<Type, StringConverter<?>> BY_TYPE = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Type, StringConverter<?>> eldest) {
+         return size() > MAX_GENERIC;
+      }
+   };
+
+   static boolean isComposed(Class<?> clazz) {
+      return clazz.isArray() || Enum.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz)
+              || Map.class.isAssignableFrom(clazz);
+   }
+
+   private static boolean isContainer(Type type) {
+      Class<?> clazz = type instanceof GenericArrayType ? Object[].class : ClassHelper.getClass(type);
+      return clazz != null && (clazz.isArray() || Collection.class.isAssignableFrom(clazz) || clazz == Iterable.class
+              || Map.class.isAssignableFrom(clazz));
+   }
+
+   static StringConverter<?> forType(Type type) {
+      if (type instanceof Class<?> clazz) {
+         return BY_CLASS.get(clazz);
+      }
+      StringConverter<?> c;
+      synchronized (BY_TYPE) {
+         c = BY_TYPE.get(type);
+      }
+      if (c == null) {
+         // compose outside the lock, composing is recursive
+         c = compose(type);
+         synchronized (BY_TYPE) {
+            StringConverter<?> prev = BY_TYPE.putIfAbsent(type, c);
+            if (prev != null) {
+               c = prev;
+            }
+         }
+      }
+      return c;
+   }
+
+   /**
+    * @throws IllegalArgumentException when the element type is an array, List or Map
+    */
+   private static StringConverter<?> element(Type container, Type element) {
+      if (isContainer(element)) {
+         throw new IllegalArgumentException(String.format("%s not supported, %s cannot be an element, separators do not nest",
+                 container, element));
+      }
+      return forType(element);
+   }
+
+   private static StringConverter<?> compose(Type type) {
+      if (type instanceof Class<?> clazz) {
+         if (clazz.isArray()) {
+            return new StringConverter.ArrayParser(clazz.getComponentType(), element(clazz, clazz.getComponentType()));
+         } else if (Enum.class.isAssignableFrom(clazz)) {
+            // constants with a body are subclasses
+            return enumParser(clazz.isEnum() ? clazz : clazz.getSuperclass());
+         } else if (List.class.isAssignableFrom(clazz)) {
+            Class<?> element = ClassHelper.findParameterClass(0, clazz.asSubclass(List.class), List.class);
+            if (element == null) {
+               throw new IllegalArgumentException("cannot determine element type of " + clazz);
+            }
+            return listParser(element(clazz, element), clazz);
+         } else if (Map.class.isAssignableFrom(clazz)) {
+            List<Class<?>> params = ClassHelper.findParameterClasses(clazz.asSubclass(Map.class), Map.class);
+            if (params == null || params.get(0) == null || params.get(1) == null) {
+               throw new IllegalArgumentException("cannot determine key and value types of " + clazz);
+            }
+            return mapParser(element(clazz, params.get(0)), element(clazz, params.get(1)), clazz);
+         }
+         return StringConverter.forClass(clazz);
+      } else if (type instanceof ParameterizedType pt) {
+         Class<?> raw = ClassHelper.getClass(pt);
+         Type[] args = pt.getActualTypeArguments();
+         if ((List.class.isAssignableFrom(raw) || raw == Collection.class || raw == Iterable.class) && args.length == 1) {
+            return listParser(element(type, args[0]), raw);
+         } else if (Map.class.isAssignableFrom(raw) && args.length == 2) {
+            return mapParser(element(type, args[0]), element(type, args[1]), raw);
+         }
+      } else if (type instanceof GenericArrayType ga) {
+         Class<?> component = ClassHelper.getClass(ga.getGenericComponentType());
+         if (component != null) {
+            return new StringConverter.ArrayParser(component, element(type, ga.getGenericComponentType()));
+         }
+      }
+      throw new IllegalArgumentException(type + " not supported");
+   }
+
+   /**
+    * the type parameter of an enum class is the class itself
+    */
+   @SuppressWarnings("unchecked")
+   private static <E extends Enum<E>> StringConverter<E> enumParser(Class<?> clazz) {
+      return new StringConverter.EnumParser<>((Class<E>) clazz);
+   }
+
+   private static <E> StringConverter<List<E>> listParser(StringConverter<E> element, Class<?> clazz) {
+      return new StringConverter.ListParser<>(element, factory(clazz, ArrayList::new));
+   }
+
+   private static <K, V> StringConverter<Map<K, V>> mapParser(StringConverter<K> key, StringConverter<V> value, Class<?> clazz) {
+      return new StringConverter.MapParser<>(key, value, factory(clazz, LinkedHashMap::new));
+   }
+
+   /**
+    * @return a factory calling the no argument constructor of a concrete class or the default factory
+    */
+   @SuppressWarnings("unchecked")
+   private static <T> Supplier<T> factory(Class<?> clazz, Supplier<T> defaultFactory) {
+      if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+         return defaultFactory;
+      }
+      Constructor<?> con = ClassHelper.findConstructor(clazz);
+      if (con == null || !Modifier.isPublic(con.getModifiers())) {
+         throw new IllegalArgumentException(clazz + " has no public no argument constructor");
+      }
+      // clazz is a List or Map with the element types the converters were composed for
+      return (Supplier<T>) ClassHelper.supplier(clazz);
+   }
+}
@@ -0,0 +1,146 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Fast path for parsing short decimals like 12.5 or -0.75e3, used by {@link StringConverter.DoubleParser} and {@link StringConverter.FloatParser}.
+ * When the significant digits fit exactly in the significand of the target type and the power of ten is exact as well
+ * (Clinger's fast path), one multiplication or division yields the correctly rounded result. All other input, like
+ * long fractions, large exponents, hexadecimal notation, whitespace or type suffixes, is left to the JDK.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+final class FastFloatingPoint {
+
+   private FastFloatingPoint() {
+   }
+
+   private static final double[] DOUBLE_POWERS = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+   };
+
+   private static final float[] FLOAT_POWERS = {
+      1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+   };
+
+   /**
+    * 10^15 &lt; 2^53 and 10^7 &lt; 2^24
+    */
+   private static final int DOUBLE_DIGITS = 15, FLOAT_DIGITS = 7;
+
+   /**
+    * @return the value or NaN when the JDK should parse the value
+    */
+   static double parseDouble(String val) {
+      return parse(val, false);
+   }
+
+   /**
+    * @return the value or NaN when the JDK should parse the value
+    */
+   static float parseFloat(String val) {
+      return (float) parse(val, true);
+   }
+
+   private static double parse(String val, boolean single) {
+      int len = val == null ? 0 : val.length();
+      if (len == 0) {
+         return Double.NaN;
+      }
+      int maxDigits = single ? FLOAT_DIGITS : DOUBLE_DIGITS;
+      int i = 0;
+      boolean negative = false;
+      char c = val.charAt(0);
+      if (c == '-' || c == '+') {
+         negative = c == '-';
+         i++;
+      }
+      long mantissa = 0;
+      int digits = 0, exp = 0;
+      boolean dot = false, seen = false;
+      for (; i < len; i++) {
+         c = val.charAt(i);
+         if (c >= '0' && c <= '9') {
+            seen = true;
+            // leading zeros are not significant
+            if ((digits > 0 || c != '0') && ++digits > maxDigits) {
+               return Double.NaN;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (dot) {
+               exp--;
+            }
+         } else if (c == '.' && !dot) {
+            dot = true;
+         } else {
+            break;
+         }
+      }
+      if (!seen) {
+         return Double.NaN;
+      }
+      if (i < len && (c == 'e' || c == 'E')) {
+         i++;
+         boolean expNegative = false;
+         if (i < len && (val.charAt(i) == '-' || val.charAt(i) == '+')) {
+            expNegative = val.charAt(i) == '-';
+            i++;
+         }
+         int e = 0, expDigits = 0;
+         for (; i < len; i++) {
+            c = val.charAt(i);
+            if (c < '0' || c > '9') {
+               break;
+            }
+            if (e < 1000) {
+               e = e * 10 + (c - '0');
+            }
+            expDigits++;
+         }
+         if (expDigits == 0) {
+            return Double.NaN;
+         }
+         exp += expNegative ? -e : e;
+      }
+      if (i != len) {
+         return Double.NaN;
+      }
+      if (mantissa == 0) {
+         return negative ? -0.0 : 0.0;
+      }
+      double d;
+      if (single) {
+         if (exp < -FLOAT_POWERS.length + 1 || exp >= FLOAT_POWERS.length) {
+            return Double.NaN;
+         }
+         // float arithmetic to prevent double rounding
+         float f = exp < 0 ? (float) mantissa / FLOAT_POWERS[-exp] : (float) mantissa * FLOAT_POWERS[exp];
+         d = f;
+      } else {
+         if (exp < -DOUBLE_POWERS.length + 1 || exp >= DOUBLE_POWERS.length) {
+            return Double.NaN;
+         }
+         d = exp < 0 ? mantissa / DOUBLE_POWERS[-exp] : mantissa * DOUBLE_POWERS[exp];
+      }
+      return negative ? -d : d;
+   }
+}
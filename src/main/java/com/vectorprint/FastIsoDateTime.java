@@ -0,0 +1,188 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+
+/**
+ * Fast path for parsing fixed width ISO dates and times without {@link java.time.format.DateTimeFormatter}, used by the
+ * java.time converters in {@link StringConverter}. Supported are yyyy-MM-dd, HH:mm[:ss[.fraction]] and combinations
+ * of these separated by T, optionally followed by Z or an offset +HH:MM[:SS]. The methods return null for input they
+ * do not handle or that is invalid, callers then fall back to the JDK parse methods.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+final class FastIsoDateTime {
+
+   private FastIsoDateTime() {
+   }
+
+   /**
+    * @return the value of the ascii digits between from and to or -1
+    */
+   private static int digits(String val, int from, int to) {
+      int v = 0;
+      for (int i = from; i < to; i++) {
+         char c = val.charAt(i);
+         if (c < '0' || c > '9') {
+            return -1;
+         }
+         v = v * 10 + (c - '0');
+      }
+      return v;
+   }
+
+   /**
+    * @return a LocalDate or null when the text between from and to is not a valid yyyy-MM-dd
+    */
+   static LocalDate parseLocalDate(String val, int from, int to) {
+      if (to - from != 10 || val.charAt(from + 4) != '-' || val.charAt(from + 7) != '-') {
+         return null;
+      }
+      int year = digits(val, from, from + 4), month = digits(val, from + 5, from + 7), day = digits(val, from + 8, from + 10);
+      if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+         return null;
+      }
+      return LocalDate.of(year, month, day);
+   }
+
+   /**
+    * @return a LocalTime or null when the text between from and to is not a valid HH:mm[:ss[.fraction]]
+    */
+   static LocalTime parseLocalTime(String val, int from, int to) {
+      int len = to - from;
+      if (len < 5 || val.charAt(from + 2) != ':') {
+         return null;
+      }
+      int hour = digits(val, from, from + 2), minute = digits(val, from + 3, from + 5), second = 0, nano = 0;
+      if (len > 5) {
+         if (len < 8 || val.charAt(from + 5) != ':') {
+            return null;
+         }
+         second = digits(val, from + 6, from + 8);
+         if (len > 8) {
+            if (len > 18 || val.charAt(from + 8) != '.') {
+               return null;
+            }
+            nano = digits(val, from + 9, to);
+            if (nano < 0) {
+               return null;
+            }
+            for (int i = len; i < 18; i++) {
+               nano *= 10;
+            }
+         }
+      }
+      if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+         return null;
+      }
+      return LocalTime.of(hour, minute, second, nano);
+   }
+
+   /**
+    * @return a LocalDateTime or null when the text between from and to is not a valid yyyy-MM-ddTHH:mm[:ss[.fraction]]
+    */
+   static LocalDateTime parseLocalDateTime(String val, int from, int to) {
+      if (to - from < 16 || (val.charAt(from + 10) != 'T' && val.charAt(from + 10) != 't')) {
+         return null;
+      }
+      LocalDate date = parseLocalDate(val, from, from + 10);
+      LocalTime time = date == null ? null : parseLocalTime(val, from + 11, to);
+      return time == null ? null : LocalDateTime.of(date, time);
+   }
+
+   static LocalDateTime parseLocalDateTime(String val) {
+      return parseLocalDateTime(val, 0, val.length());
+   }
+
+   /**
+    * @return a ZoneOffset or null when the text between from and to is not Z or a valid +HH:MM[:SS]
+    */
+   static ZoneOffset parseOffset(String val, int from, int to) {
+      int len = to - from;
+      if (len == 1) {
+         return val.charAt(from) == 'Z' ? ZoneOffset.UTC : null;
+      }
+      if ((len != 6 && len != 9) || val.charAt(from + 3) != ':' || (len == 9 && val.charAt(from + 6) != ':')) {
+         return null;
+      }
+      char sign = val.charAt(from);
+      if (sign != '+' && sign != '-') {
+         return null;
+      }
+      int hours = digits(val, from + 1, from + 3), minutes = digits(val, from + 4, from + 6),
+              seconds = len == 9 ? digits(val, from + 7, from + 9) : 0;
+      if (hours < 0 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+         return null;
+      }
+      int total = hours * 3600 + minutes * 60 + seconds;
+      if (total > 18 * 3600) {
+         return null;
+      }
+      return ZoneOffset.ofTotalSeconds(sign == '-' ? -total : total);
+   }
+
+   /**
+    * @return the index of the start of an offset after a yyyy-MM-ddTHH:mm or -1
+    */
+   private static int offsetStart(String val) {
+      for (int i = val.length() - 1; i >= 16; i--) {
+         char c = val.charAt(i);
+         if (c == 'Z' || c == '+' || c == '-') {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   /**
+    * @return an OffsetDateTime or null when val is not a valid yyyy-MM-ddTHH:mm[:ss[.fraction]] followed by an offset
+    */
+   static OffsetDateTime parseOffsetDateTime(String val) {
+      int offset = offsetStart(val);
+      if (offset < 0) {
+         return null;
+      }
+      LocalDateTime ldt = parseLocalDateTime(val, 0, offset);
+      ZoneOffset zo = ldt == null ? null : parseOffset(val, offset, val.length());
+      return zo == null ? null : OffsetDateTime.of(ldt, zo);
+   }
+
+   /**
+    * @return an Instant or null when val is not a valid yyyy-MM-ddTHH:mm:ss[.fraction]Z
+    */
+   static Instant parseInstant(String val) {
+      int len = val.length();
+      // seconds are mandatory for an instant
+      if (len < 20 || val.charAt(len - 1) != 'Z' || val.charAt(16) != ':') {
+         return null;
+      }
+      LocalDateTime ldt = parseLocalDateTime(val, 0, len - 1);
+      return ldt == null ? null : ldt.toInstant(ZoneOffset.UTC);
+   }
+}
@@ -0,0 +1,258 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Companion of {@link ArrayHelper} for primitive data kept outside the Java heap, for example large coordinate or
+ * pixel buffers. Buffers are direct and in native byte order, their memory is released when they are garbage
+ * collected. Conversions between heap arrays and buffers are bulk copies, they use absolute indexes and do not change
+ * the position of a buffer. For other copies use the absolute bulk get and put methods of the buffers, use
+ * asReadOnlyBuffer to hand out read only views.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public class OffHeapArrayHelper {
+
+   private static final int CHUNK = 8192;
+   private static final byte[] ZEROS = new byte[CHUNK];
+   // CHUNK bytes of zeros per type, clearing is a bulk copy for every buffer type
+   private static final char[] ZERO_CHARS = new char[CHUNK / Character.BYTES];
+   private static final int[] ZERO_INTS = new int[CHUNK / Integer.BYTES];
+   private static final float[] ZERO_FLOATS = new float[CHUNK / Float.BYTES];
+   private static final double[] ZERO_DOUBLES = new double[CHUNK / Double.BYTES];
+
+   private OffHeapArrayHelper() {
+   }
+
+   /**
+    * @param bytes
+    * @return a direct buffer in native byte order
+    */
+   public static ByteBuffer allocate(int bytes) {
+      return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+   }
+
+   public static CharBuffer allocateChars(int count) {
+      return allocate(Math.multiplyExact(count, Character.BYTES)).asCharBuffer();
+   }
+
+   public static IntBuffer allocateInts(int count) {
+      return allocate(Math.multiplyExact(count, Integer.BYTES)).asIntBuffer();
+   }
+
+   public static FloatBuffer allocateFloats(int count) {
+      return allocate(Math.multiplyExact(count, Float.BYTES)).asFloatBuffer();
+   }
+
+   public static DoubleBuffer allocateDoubles(int count) {
+      return allocate(Math.multiplyExact(count, Double.BYTES)).asDoubleBuffer();
+   }
+
+   /**
+    * bulk put of zeros at an absolute index
+    */
+   @FunctionalInterface
+   private interface Zeros {
+
+      void put(int index, int length);
+   }
+
+   /**
+    * Zeros the capacity in chunks. Callers put into a duplicate with its limit set to the capacity, because absolute
+    * access is bounded by the limit.
+    */
+   private static void clear(int capacity, int chunk, Zeros zeros) {
+      for (int i = 0; i < capacity; i += chunk) {
+         zeros.put(i, Math.min(chunk, capacity - i));
+      }
+   }
+
+   /**
+    * zero the whole capacity of a buffer, regardless of position and limit
+    *
+    * @param buffer
+    */
+   public static void clear(ByteBuffer buffer) {
+      if (buffer == null) {
+         return;
+      }
+      ByteBuffer all = buffer.duplicate().clear();
+      clear(buffer.capacity(), ZEROS.length, (index, length) -> all.put(index, ZEROS, 0, length));
+   }
+
+   /**
+    * zero the whole capacity of a buffer, regardless of position and limit
+    *
+    * @param buffer
+    */
+   public static void clear(CharBuffer buffer) {
+      if (buffer == null) {
+         return;
+      }
+      CharBuffer all = buffer.duplicate().clear();
+      clear(buffer.capacity(), ZERO_CHARS.length, (index, length) -> all.put(index, ZERO_CHARS, 0, length));
+   }
+
+   /**
+    * zero the whole capacity of a buffer, regardless of position and limit
+    *
+    * @param buffer
+    */
+   public static void clear(IntBuffer buffer) {
+      if (buffer == null) {
+         return;
+      }
+      IntBuffer all = buffer.duplicate().clear();
+      clear(buffer.capacity(), ZERO_INTS.length, (index, length) -> all.put(index, ZERO_INTS, 0, length));
+   }
+
+   /**
+    * zero the whole capacity of a buffer, regardless of position and limit
+    *
+    * @param buffer
+    */
+   public static void clear(FloatBuffer buffer) {
+      if (buffer == null) {
+         return;
+      }
+      FloatBuffer all = buffer.duplicate().clear();
+      clear(buffer.capacity(), ZERO_FLOATS.length, (index, length) -> all.put(index, ZERO_FLOATS, 0, length));
+   }
+
+   /**
+    * zero the whole capacity of a buffer, regardless of position and limit
+    *
+    * @param buffer
+    */
+   public static void clear(DoubleBuffer buffer) {
+      if (buffer == null) {
+         return;
+      }
+      DoubleBuffer all = buffer.duplicate().clear();
+      clear(buffer.capacity(), ZERO_DOUBLES.length, (index, length) -> all.put(index, ZERO_DOUBLES, 0, length));
+   }
+
+   public static ByteBuffer toOffHeap(byte[] ba) {
+      if (ba == null) {
+         return null;
+      }
+      return allocate(ba.length).put(0, ba);
+   }
+
+   public static CharBuffer toOffHeap(char[] ca) {
+      if (ca == null) {
+         return null;
+      }
+      return allocateChars(ca.length).put(0, ca);
+   }
+
+   public static IntBuffer toOffHeap(int[] ia) {
+      if (ia == null) {
+         return null;
+      }
+      return allocateInts(ia.length).put(0, ia);
+   }
+
+   public static FloatBuffer toOffHeap(float[] fa) {
+      if (fa == null) {
+         return null;
+      }
+      return allocateFloats(fa.length).put(0, fa);
+   }
+
+   public static DoubleBuffer toOffHeap(double[] da) {
+      if (da == null) {
+         return null;
+      }
+      return allocateDoubles(da.length).put(0, da);
+   }
+
+   /**
+    * @param buffer
+    * @return the elements from 0 to the limit of the buffer
+    */
+   public static byte[] toArray(ByteBuffer buffer) {
+      if (buffer == null) {
+         return null;
+      }
+      byte[] rv = new byte[buffer.limit()];
+      buffer.get(0, rv);
+      return rv;
+   }
+
+   /**
+    * @param buffer
+    * @return the elements from 0 to the limit of the buffer
+    */
+   public static char[] toArray(CharBuffer buffer) {
+      if (buffer == null) {
+         return null;
+      }
+      char[] rv = new char[buffer.limit()];
+      buffer.get(0, rv);
+      return rv;
+   }
+
+   /**
+    * @param buffer
+    * @return the elements from 0 to the limit of the buffer
+    */
+   public static int[] toArray(IntBuffer buffer) {
+      if (buffer == null) {
+         return null;
+      }
+      int[] rv = new int[buffer.limit()];
+      buffer.get(0, rv);
+      return rv;
+   }
+
+   /**
+    * @param buffer
+    * @return the elements from 0 to the limit of the buffer
+    */
+   public static float[] toArray(FloatBuffer buffer) {
+      if (buffer == null) {
+         return null;
+      }
+      float[] rv = new float[buffer.limit()];
+      buffer.get(0, rv);
+      return rv;
+   }
+
+   /**
+    * @param buffer
+    * @return the elements from 0 to the limit of the buffer
+    */
+   public static double[] toArray(DoubleBuffer buffer) {
+      if (buffer == null) {
+         return null;
+      }
+      double[] rv = new double[buffer.limit()];
+      buffer.get(0, rv);
+      return rv;
+   }
+}
@@ -0,0 +1,305 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable tree model of a java type in which nested type arguments, wildcard bounds and array components are kept
+ * and type variables of supertypes are replaced by their actual arguments. For example for
+ * <pre>
+ * class Lookup extends HashMap&lt;String, List&lt;Integer&gt;&gt;
+ * </pre>
+ * <code>ResolvedType.of(Lookup.class).getSuperType(Map.class)</code> yields
+ * <code>java.util.Map&lt;java.lang.String, java.util.List&lt;java.lang.Integer&gt;&gt;</code>. Types of classes are
+ * cached, supertypes are resolved once per instance when first needed. Owner types of nested classes are not
+ * modelled.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public final class ResolvedType {
+
+   public enum Kind {
+      /**
+       * a class without type arguments, including primitives and raw use of generic classes
+       */
+      CLASS,
+      /**
+       * a class with type arguments
+       */
+      PARAMETERIZED,
+      ARRAY,
+      WILDCARD,
+      /**
+       * a type variable without an actual argument, its raw class is the erasure of its first bound
+       */
+      VARIABLE
+   }
+
+   private static final ClassValue<ResolvedType> CLASSES = new ClassValue<>() {
+      @Override
+      protected ResolvedType computeValue(Class<?> type) {
+         return type.isArray()
+             ? new ResolvedType(Kind.ARRAY, type, null, List.of(), of(type.getComponentType()), List.of(), List.of())
+             : new ResolvedType(Kind.CLASS, type, null, List.of(), null, List.of(), List.of());
+      }
+   };
+
+   private final Kind kind;
+   private final Class<?> rawClass;
+   private final String name;
+   private final List<ResolvedType> typeArguments;
+   private final ResolvedType componentType;
+   private final List<ResolvedType> upperBounds;
+   private final List<ResolvedType> lowerBounds;
+   private volatile List<ResolvedType> superTypes;
+
+   private ResolvedType(Kind kind, Class<?> rawClass, String name, List<ResolvedType> typeArguments,
+       ResolvedType componentType, List<ResolvedType> upperBounds, List<ResolvedType> lowerBounds) {
+      this.kind = kind;
+      this.rawClass = rawClass;
+      this.name = name;
+      this.typeArguments = typeArguments;
+      this.componentType = componentType;
+      this.upperBounds = upperBounds;
+      this.lowerBounds = lowerBounds;
+   }
+
+   /**
+    * @param clazz
+    * @return the cached type of a class
+    */
+   public static ResolvedType of(Class<?> clazz) {
+      return CLASSES.get(clazz);
+   }
+
+   /**
+    * @param type
+    * @return the resolved type, type variables become {@link Kind#VARIABLE}
+    */
+   public static ResolvedType of(Type type) {
+      return resolve(type, Map.of());
+   }
+
+   private static ResolvedType resolve(Type type, Map<TypeVariable<?>, ResolvedType> vars) {
+      if (type instanceof Class<?> clazz) {
+         return of(clazz);
+      } else if (type instanceof ParameterizedType pa) {
+         Type[] args = pa.getActualTypeArguments();
+         List<ResolvedType> resolved = new ArrayList<>(args.length);
+         for (Type t : args) {
+            resolved.add(resolve(t, vars));
+         }
+         return new ResolvedType(Kind.PARAMETERIZED, (Class<?>) pa.getRawType(), null,
+             Collections.unmodifiableList(resolved), null, List.of(), List.of());
+      } else if (type instanceof GenericArrayType ga) {
+         ResolvedType component = resolve(ga.getGenericComponentType(), vars);
+         return new ResolvedType(Kind.ARRAY, Array.newInstance(component.rawClass, 0).getClass(), null, List.of(),
+             component, List.of(), List.of());
+      } else if (type instanceof WildcardType wt) {
+         List<ResolvedType> upper = resolve(wt.getUpperBounds(), vars);
+         return new ResolvedType(Kind.WILDCARD, upper.isEmpty() ? Object.class : upper.get(0).rawClass, null, List.of(),
+             null, upper, resolve(wt.getLowerBounds(), vars));
+      } else if (type instanceof TypeVariable<?> tv) {
+         ResolvedType bound = vars.get(tv);
+         if (bound != null) {
+            return bound;
+         }
+         // bounds may refer to the variable itself, only keep the erasure
+         return new ResolvedType(Kind.VARIABLE, ClassHelper.getClass(erasure(tv)), tv.getName(), List.of(), null,
+             List.of(), List.of());
+      }
+      throw new IllegalArgumentException("unsupported type " + type);
+   }
+
+   private static Type erasure(TypeVariable<?> tv) {
+      Type bound = tv.getBounds()[0];
+      while (bound instanceof TypeVariable<?> other) {
+         bound = other.getBounds()[0];
+      }
+      return bound;
+   }
+
+   private static List<ResolvedType> resolve(Type[] types, Map<TypeVariable<?>, ResolvedType> vars) {
+      if (types.length == 0) {
+         return List.of();
+      }
+      List<ResolvedType> rv = new ArrayList<>(types.length);
+      for (Type t : types) {
+         rv.add(resolve(t, vars));
+      }
+      return Collections.unmodifiableList(rv);
+   }
+
+   /**
+    * @return the direct generic superclass and interfaces with type variables replaced by the type arguments of this
+    * type
+    */
+   public List<ResolvedType> getSuperTypes() {
+      List<ResolvedType> st = superTypes;
+      if (st == null) {
+         if (kind != Kind.CLASS && kind != Kind.PARAMETERIZED) {
+            st = List.of();
+         } else {
+            Map<TypeVariable<?>, ResolvedType> vars = new HashMap<>(4);
+            TypeVariable<?>[] params = rawClass.getTypeParameters();
+            for (int i = 0; i < typeArguments.size() && i < params.length; i++) {
+               vars.put(params[i], typeArguments.get(i));
+            }
+            List<ResolvedType> rv = new ArrayList<>(4);
+            if (rawClass.getGenericSuperclass() != null) {
+               rv.add(resolve(rawClass.getGenericSuperclass(), vars));
+            }
+            for (Type t : rawClass.getGenericInterfaces()) {
+               rv.add(resolve(t, vars));
+            }
+            st = Collections.unmodifiableList(rv);
+         }
+         superTypes = st;
+      }
+      return st;
+   }
+
+   /**
+    * find a supertype, or this type itself
+    *
+    * @param target
+    * @return the supertype with raw class target, or null
+    */
+   public ResolvedType getSuperType(Class<?> target) {
+      if (rawClass == target && kind != Kind.WILDCARD && kind != Kind.VARIABLE) {
+         return this;
+      }
+      if (!target.isAssignableFrom(rawClass)) {
+         return null;
+      }
+      for (ResolvedType t : getSuperTypes()) {
+         ResolvedType found = t.getSuperType(target);
+         if (found != null) {
+            return found;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * @param target
+    * @return the type arguments for target as a supertype of this type, or null when target is not a supertype
+    */
+   public List<ResolvedType> getTypeArgumentsOf(Class<?> target) {
+      ResolvedType st = getSuperType(target);
+      return st == null ? null : st.typeArguments;
+   }
+
+   public Kind getKind() {
+      return kind;
+   }
+
+   /**
+    * @return the erasure of this type
+    */
+   public Class<?> getRawClass() {
+      return rawClass;
+   }
+
+   /**
+    * @return the name of a type variable, otherwise null
+    */
+   public String getName() {
+      return name;
+   }
+
+   public List<ResolvedType> getTypeArguments() {
+      return typeArguments;
+   }
+
+   /**
+    * @return the component type of an array, otherwise null
+    */
+   public ResolvedType getComponentType() {
+      return componentType;
+   }
+
+   /**
+    * @return the upper bounds of a wildcard
+    */
+   public List<ResolvedType> getUpperBounds() {
+      return upperBounds;
+   }
+
+   /**
+    * @return the lower bounds of a wildcard
+    */
+   public List<ResolvedType> getLowerBounds() {
+      return lowerBounds;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) {
+         return true;
+      }
+      return o instanceof ResolvedType other && kind == other.kind && rawClass == other.rawClass
+          && Objects.equals(name, other.name) && typeArguments.equals(other.typeArguments)
+          && Objects.equals(componentType, other.componentType) && upperBounds.equals(other.upperBounds)
+          && lowerBounds.equals(other.lowerBounds);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(kind, rawClass, name, typeArguments, componentType, upperBounds, lowerBounds);
+   }
+
+   @Override
+   public String toString() {
+      return switch (kind) {
+         case CLASS ->
+            rawClass.getName();
+         case PARAMETERIZED ->
+            typeArguments.stream().map(ResolvedType::toString)
+                .collect(Collectors.joining(", ", rawClass.getName() + '<', ">"));
+         case ARRAY ->
+            componentType + "[]";
+         case VARIABLE ->
+            name;
+         case WILDCARD ->
+            !lowerBounds.isEmpty() ? "? super " + join(lowerBounds)
+            : upperBounds.isEmpty() || upperBounds.get(0).rawClass == Object.class ? "?"
+            : "? extends " + join(upperBounds);
+      };
+   }
+
+   private static String join(List<ResolvedType> types) {
+      return types.stream().map(ResolvedType::toString).collect(Collectors.joining(" & "));
+   }
+}
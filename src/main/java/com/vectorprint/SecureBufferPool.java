@@ -0,0 +1,322 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of byte[], char[] and direct {@link ByteBuffer}s for secrets and temporary crypto data, buffers are scrubbed
+ * with {@link ArrayHelper#clear(byte[]) } or {@link OffHeapArrayHelper#clear(java.nio.ByteBuffer) } when released.
+ * Buffers come in power of two size classes, so an acquired array may be longer than requested, ByteBuffers get a
+ * limit equal to the requested length. Larger requests than the maximum buffer size are not pooled, but still
+ * scrubbed when released.
+ * <pre>
+ * char[] password = pool.acquireChars(64);
+ * try {
+ *    ...
+ * } finally {
+ *    pool.release(password);
+ * }
+ * </pre>
+ * Each platform thread keeps one buffer per size class for itself, so a release followed by an acquire in the same
+ * thread does not touch the shared queues. Virtual threads always use the shared queues. Releasing a buffer that is
+ * already idle in the shared queues or in the slot of the releasing thread is ignored. In test mode (leak detection,
+ * enabled by default when the system property vectorprint.bufferpool.leakdetection is true) outstanding buffers are
+ * tracked with the stack trace of their acquisition, releasing a foreign buffer or releasing twice throws an
+ * IllegalStateException and {@link #checkLeaks() } reports buffers that were not released.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public class SecureBufferPool {
+
+   private static final int MIN_SHIFT = 4;
+   private static final int MAX_SIZE = 1 << 30;
+   private static final int BYTES = 0, CHARS = 1, BUFFERS = 2;
+   /**
+    * thread slots per pool, weak keys so the slots of a discarded pool do not outlive it
+    */
+   private static final ThreadLocal<Map<SecureBufferPool, Object[][]>> LOCAL = ThreadLocal.withInitial(WeakHashMap::new);
+
+   private final int classes;
+   private final int perClass;
+   private final boolean scrubOnAcquire;
+   private final Queue<Object>[][] shared;
+   private final AtomicInteger[][] counts;
+   /**
+    * buffers in the shared queues, buffers in thread slots are checked against the slot
+    */
+   private final Set<Ref> idle = ConcurrentHashMap.newKeySet();
+   private final Map<Ref, Throwable> outstanding;
+
+   /**
+    * Pool for buffers up to 64K, keeping at most 32 buffers per size class, leak detection determined by the system
+    * property vectorprint.bufferpool.leakdetection.
+    */
+   public SecureBufferPool() {
+      this(1 << 16, 32, false, Boolean.getBoolean("vectorprint.bufferpool.leakdetection"));
+   }
+
+   /**
+    *
+    * @param maxBufferSize the largest pooled buffer, rounded up to a power of two, at most 2^30
+    * @param perClass the maximum number of idle buffers per size class and type, in addition to the ones held by
+    * threads
+    * @param scrubOnAcquire also scrub reused buffers before handing them out
+    * @param leakDetection track outstanding buffers, meant for tests
+    */
+   // arrays of a generic type can only be created raw
+   @SuppressWarnings({"rawtypes", "unchecked"})
+   public SecureBufferPool(int maxBufferSize, int perClass, boolean scrubOnAcquire, boolean leakDetection) {
+      if (maxBufferSize < 1 || maxBufferSize > MAX_SIZE || perClass < 0) {
+         throw new IllegalArgumentException(String.format("invalid maxBufferSize %d or perClass %d", maxBufferSize, perClass));
+      }
+      this.classes = sizeClass(maxBufferSize, Integer.MAX_VALUE) + 1;
+      this.perClass = perClass;
+      this.scrubOnAcquire = scrubOnAcquire;
+      shared = new Queue[3][classes];
+      counts = new AtomicInteger[3][classes];
+      for (int k = 0; k < 3; k++) {
+         for (int c = 0; c < classes; c++) {
+            shared[k][c] = new ConcurrentLinkedQueue<>();
+            counts[k][c] = new AtomicInteger();
+         }
+      }
+      outstanding = leakDetection ? new ConcurrentHashMap<>() : null;
+   }
+
+   private static int sizeClass(int length, int classes) {
+      int c = length <= 1 << MIN_SHIFT ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_SHIFT;
+      return c < classes ? c : -1;
+   }
+
+   private static int size(int sizeClass) {
+      return 1 << (sizeClass + MIN_SHIFT);
+   }
+
+   /**
+    *
+    * @param length
+    * @return an array of at least length bytes
+    */
+   public byte[] acquireBytes(int length) {
+      byte[] b = (byte[]) acquire(BYTES, length);
+      if (b == null) {
+         b = new byte[pooledSize(length)];
+      } else if (scrubOnAcquire) {
+         ArrayHelper.clear(b);
+      }
+      return track(b);
+   }
+
+   /**
+    *
+    * @param length
+    * @return an array of at least length chars
+    */
+   public char[] acquireChars(int length) {
+      char[] c = (char[]) acquire(CHARS, length);
+      if (c == null) {
+         c = new char[pooledSize(length)];
+      } else if (scrubOnAcquire) {
+         ArrayHelper.clear(c);
+      }
+      return track(c);
+   }
+
+   /**
+    *
+    * @param length
+    * @return a direct buffer in native order with position 0 and limit length
+    */
+   public ByteBuffer acquireBuffer(int length) {
+      ByteBuffer b = (ByteBuffer) acquire(BUFFERS, length);
+      if (b == null) {
+         b = OffHeapArrayHelper.allocate(pooledSize(length));
+      } else if (scrubOnAcquire) {
+         OffHeapArrayHelper.clear(b);
+      }
+      b.clear().limit(length);
+      return track(b);
+   }
+
+   /**
+    * scrub the array and return it to the pool
+    *
+    * @param bytes
+    */
+   public void release(byte[] bytes) {
+      if (bytes == null) {
+         return;
+      }
+      untrack(bytes);
+      ArrayHelper.clear(bytes);
+      offer(BYTES, bytes, bytes.length);
+   }
+
+   /**
+    * scrub the array and return it to the pool
+    *
+    * @param chars
+    */
+   public void release(char[] chars) {
+      if (chars == null) {
+         return;
+      }
+      untrack(chars);
+      ArrayHelper.clear(chars);
+      offer(CHARS, chars, chars.length);
+   }
+
+   /**
+    * scrub the whole capacity of the buffer and return it to the pool, do not release slices or duplicates
+    *
+    * @param buffer
+    */
+   public void release(ByteBuffer buffer) {
+      if (buffer == null) {
+         return;
+      }
+      untrack(buffer);
+      OffHeapArrayHelper.clear(buffer);
+      if (buffer.isDirect() && !buffer.isReadOnly()) {
+         offer(BUFFERS, buffer, buffer.capacity());
+      }
+   }
+
+   private int pooledSize(int length) {
+      if (length < 0) {
+         throw new NegativeArraySizeException(String.valueOf(length));
+      }
+      int c = sizeClass(length, classes);
+      return c < 0 ? length : size(c);
+   }
+
+   private Object[] slots(int kind) {
+      return LOCAL.get().computeIfAbsent(this, p -> new Object[3][classes])[kind];
+   }
+
+   private Object acquire(int kind, int length) {
+      int c = sizeClass(length, classes);
+      if (c < 0) {
+         return null;
+      }
+      if (!Thread.currentThread().isVirtual()) {
+         Object[] slots = slots(kind);
+         Object o = slots[c];
+         if (o != null) {
+            slots[c] = null;
+            return o;
+         }
+      }
+      Object o = shared[kind][c].poll();
+      if (o != null) {
+         counts[kind][c].decrementAndGet();
+         idle.remove(new Ref(o));
+      }
+      return o;
+   }
+
+   private void offer(int kind, Object buffer, int capacity) {
+      int c = sizeClass(capacity, classes);
+      if (c < 0 || size(c) != capacity) {
+         // not from this pool, or too large
+         return;
+      }
+      Ref ref = new Ref(buffer);
+      if (!Thread.currentThread().isVirtual()) {
+         Object[] slots = slots(kind);
+         if (slots[c] == buffer || idle.contains(ref)) {
+            // released twice
+            return;
+         }
+         if (slots[c] == null) {
+            slots[c] = buffer;
+            return;
+         }
+      }
+      if (!idle.add(ref)) {
+         // released twice
+         return;
+      }
+      if (counts[kind][c].incrementAndGet() <= perClass) {
+         shared[kind][c].offer(buffer);
+      } else {
+         counts[kind][c].decrementAndGet();
+         idle.remove(ref);
+      }
+   }
+
+   private <T> T track(T buffer) {
+      if (outstanding != null) {
+         outstanding.put(new Ref(buffer), new Throwable("acquired " + Thread.currentThread()));
+      }
+      return buffer;
+   }
+
+   private void untrack(Object buffer) {
+      if (outstanding != null && outstanding.remove(new Ref(buffer)) == null) {
+         throw new IllegalStateException("buffer not acquired from this pool or released twice");
+      }
+   }
+
+   /**
+    * @return the number of acquired buffers that were not released, 0 when leak detection is off
+    */
+   public int outstanding() {
+      return outstanding == null ? 0 : outstanding.size();
+   }
+
+   /**
+    * @throws IllegalStateException when buffers were not released, the stack traces of their acquisition are added as
+    * suppressed exceptions
+    */
+   public void checkLeaks() {
+      if (outstanding == null || outstanding.isEmpty()) {
+         return;
+      }
+      IllegalStateException ex = new IllegalStateException(outstanding.size() + " buffers not released");
+      outstanding.values().forEach(ex::addSuppressed);
+      throw ex;
+   }
+
+   /**
+    * identity based key, ByteBuffer equality depends on content
+    */
+   private record Ref(Object buffer) {
+
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof Ref r && r.buffer == buffer;
+      }
+
+      @Override
+      public int hashCode() {
+         return System.identityHashCode(buffer);
+      }
+   }
+}
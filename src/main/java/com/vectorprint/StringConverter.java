@@ -23,13 +23,37 @@ package com.vectorprint;
 
 import java.awt.*;
 import java.io.File;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalQuery;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Turn a String into a value of another type
@@ -41,11 +65,283 @@ public interface StringConverter<T> {
 
     T convert(String val);
 
+    /**
+     * Convert without throwing exceptions for invalid input, meant for validating large amounts of (untrusted) values.
+     * This default implementation catches the RuntimeException from {@link #convert(java.lang.String) }, the built in
+     * converters override it and do not create exceptions for invalid input.
+     *
+     * @param val
+     * @return
+     */
+    default Result<T> tryConvert(String val) {
+        try {
+            return Result.success(convert(val));
+        } catch (RuntimeException ex) {
+            return Result.failure(String.valueOf(ex.getMessage()));
+        }
+    }
+
+    /**
+     * The outcome of {@link #tryConvert(java.lang.String) }, holds either a value or an error message.
+     *
+     * @param <T>
+     * @param value the converted value, may be null for a successful conversion
+     * @param error null when the conversion succeeded
+     */
+    record Result<T>(T value, String error) {
+
+        public static <T> Result<T> success(T value) {
+            return new Result<>(value, null);
+        }
+
+        public static <T> Result<T> failure(String error) {
+            return new Result<>(null, error);
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public T orElse(T other) {
+            return error == null ? value : other;
+        }
+
+        /**
+         * @return the value
+         * @throws VectorPrintRuntimeException when the conversion failed
+         */
+        public T orElseThrow() {
+            if (error != null) {
+                throw new VectorPrintRuntimeException(error);
+            }
+            return value;
+        }
+    }
+
+    private static <T> Result<T> invalid(String val, String type) {
+        return Result.failure(String.format("cannot turn %s into %s", val, type));
+    }
+
+    /**
+     * for parsers that can only signal invalid input through a DateTimeException
+     */
+    private static <T> Result<T> parseOrFailure(String val, Function<String, T> parser) {
+        if (val == null) {
+            return Result.failure("cannot parse null");
+        }
+        try {
+            return Result.success(parser.apply(val));
+        } catch (DateTimeException ex) {
+            return Result.failure(ex.getMessage());
+        }
+    }
+
+    /**
+     * parse digits without creating exceptions, supports a sign at start
+     *
+     * @return the value or null when val is not a number between min and max
+     */
+    private static Long parseLong(String val, int start, int radix, long min, long max) {
+        if (val == null || start >= val.length()) {
+            return null;
+        }
+        int i = start, len = val.length();
+        boolean negative = false;
+        char first = val.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == len) {
+                return null;
+            }
+        }
+        // accumulate negatively like Long.parseLong to be able to reach Long.MIN_VALUE
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / radix;
+        long result = 0;
+        for (; i < len; i++) {
+            int d = Character.digit(val.charAt(i), radix);
+            if (d < 0 || result < multmin) {
+                return null;
+            }
+            result *= radix;
+            if (result < limit + d) {
+                return null;
+            }
+            result -= d;
+        }
+        long v = negative ? result : -result;
+        return v < min || v > max ? null : v;
+    }
+
+    /**
+     * parse like {@link Long#decode(java.lang.String) } without creating exceptions, min should be larger than
+     * Long.MIN_VALUE
+     *
+     * @return the value or null when val is not a number between min and max
+     */
+    private static Long decodeLong(String val, long min, long max) {
+        if (val == null || val.isEmpty()) {
+            return null;
+        }
+        int index = 0;
+        boolean negative = false;
+        char first = val.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            index++;
+        }
+        int radix = 10;
+        if (val.startsWith("0x", index) || val.startsWith("0X", index)) {
+            index += 2;
+            radix = 16;
+        } else if (val.startsWith("#", index)) {
+            index++;
+            radix = 16;
+        } else if (val.startsWith("0", index) && val.length() > index + 1) {
+            index++;
+            radix = 8;
+        }
+        if (index >= val.length() || val.charAt(index) == '-' || val.charAt(index) == '+') {
+            return null;
+        }
+        Long v = parseLong(val, index, radix, 0, Long.MAX_VALUE);
+        if (v == null) {
+            return null;
+        }
+        long r = negative ? -v : v;
+        return r < min || r > max ? null : r;
+    }
+
+    /**
+     * check the syntax accepted by {@link Double#valueOf(java.lang.String) }, including hexadecimal notation, NaN,
+     * Infinity, type suffixes and surrounding whitespace.
+     */
+    private static boolean isFloatingPoint(String val) {
+        if (val == null) {
+            return false;
+        }
+        int i = 0, len = val.length();
+        while (i < len && val.charAt(i) <= ' ') {
+            i++;
+        }
+        while (len > i && val.charAt(len - 1) <= ' ') {
+            len--;
+        }
+        if (i < len && (val.charAt(i) == '-' || val.charAt(i) == '+')) {
+            i++;
+        }
+        if (val.startsWith("NaN", i)) {
+            return i + 3 == len;
+        }
+        if (val.startsWith("Infinity", i)) {
+            return i + 8 == len;
+        }
+        boolean hex = val.startsWith("0x", i) || val.startsWith("0X", i);
+        int radix = 10;
+        if (hex) {
+            i += 2;
+            radix = 16;
+        }
+        int digits = 0;
+        while (i < len && isAsciiDigit(val.charAt(i), radix)) {
+            i++;
+            digits++;
+        }
+        if (i < len && val.charAt(i) == '.') {
+            i++;
+            while (i < len && isAsciiDigit(val.charAt(i), radix)) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < len && (hex ? (val.charAt(i) == 'p' || val.charAt(i) == 'P') : (val.charAt(i) == 'e' || val.charAt(i) == 'E'))) {
+            i++;
+            if (i < len && (val.charAt(i) == '-' || val.charAt(i) == '+')) {
+                i++;
+            }
+            int expDigits = 0;
+            while (i < len && isAsciiDigit(val.charAt(i), 10)) {
+                i++;
+                expDigits++;
+            }
+            if (expDigits == 0) {
+                return false;
+            }
+        } else if (hex) {
+            // binary exponent is mandatory
+            return false;
+        }
+        if (i < len && "fFdD".indexOf(val.charAt(i)) >= 0) {
+            i++;
+        }
+        return i == len;
+    }
+
+    private static boolean isAsciiDigit(char c, int radix) {
+        return (c >= '0' && c <= '9') || (radix == 16 && ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')));
+    }
+
+    /**
+     * check the syntax accepted by {@link BigDecimal#BigDecimal(java.lang.String) }
+     */
+    private static boolean isBigDecimal(String val) {
+        if (val == null) {
+            return false;
+        }
+        int i = 0, len = val.length();
+        if (i < len && (val.charAt(i) == '-' || val.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        long fraction = 0;
+        boolean dot = false;
+        for (; i < len; i++) {
+            char c = val.charAt(i);
+            if (Character.isDigit(c)) {
+                digits++;
+                if (dot) {
+                    fraction++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i == len) {
+            return true;
+        }
+        if (val.charAt(i) != 'e' && val.charAt(i) != 'E') {
+            return false;
+        }
+        Long exp = parseLong(val, i + 1, 10, Long.MIN_VALUE + Integer.MAX_VALUE, Long.MAX_VALUE);
+        return exp != null && fraction - exp >= Integer.MIN_VALUE && fraction - exp <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Short decimals are parsed by a fast path, other input by {@link Float#valueOf(java.lang.String) }.
+     */
     class FloatParser implements StringConverter<Float> {
 
         @Override
         public Float convert(String val) {
-            return Float.valueOf(val);
+            float f = FastFloatingPoint.parseFloat(val);
+            return Float.isNaN(f) ? Float.valueOf(val) : f;
+        }
+
+        @Override
+        public Result<Float> tryConvert(String val) {
+            float f = FastFloatingPoint.parseFloat(val);
+            if (!Float.isNaN(f)) {
+                return Result.success(f);
+            }
+            return isFloatingPoint(val) ? Result.success(Float.valueOf(val)) : invalid(val, "Float");
         }
     }
 
@@ -55,13 +351,32 @@ public interface StringConverter<T> {
         public Long convert(String val) {
             return Long.valueOf(val);
         }
+
+        @Override
+        public Result<Long> tryConvert(String val) {
+            Long l = parseLong(val, 0, 10, Long.MIN_VALUE, Long.MAX_VALUE);
+            return l == null ? invalid(val, "Long") : Result.success(l);
+        }
     }
 
+    /**
+     * Short decimals are parsed by a fast path, other input by {@link Double#valueOf(java.lang.String) }.
+     */
     class DoubleParser implements StringConverter<Double> {
 
         @Override
         public Double convert(String val) {
-            return Double.valueOf(val);
+            double d = FastFloatingPoint.parseDouble(val);
+            return Double.isNaN(d) ? Double.valueOf(val) : d;
+        }
+
+        @Override
+        public Result<Double> tryConvert(String val) {
+            double d = FastFloatingPoint.parseDouble(val);
+            if (!Double.isNaN(d)) {
+                return Result.success(d);
+            }
+            return isFloatingPoint(val) ? Result.success(Double.valueOf(val)) : invalid(val, "Double");
         }
     }
 
@@ -71,6 +386,11 @@ public interface StringConverter<T> {
         public BigDecimal convert(String val) {
             return new BigDecimal(val);
         }
+
+        @Override
+        public Result<BigDecimal> tryConvert(String val) {
+            return isBigDecimal(val) ? Result.success(new BigDecimal(val)) : invalid(val, "BigDecimal");
+        }
     }
 
     class BigIntegerParser implements StringConverter<BigInteger> {
@@ -79,6 +399,23 @@ public interface StringConverter<T> {
         public BigInteger convert(String val) {
             return new BigInteger(val);
         }
+
+        @Override
+        public Result<BigInteger> tryConvert(String val) {
+            if (val == null || val.isEmpty()) {
+                return invalid(val, "BigInteger");
+            }
+            int i = val.charAt(0) == '-' || val.charAt(0) == '+' ? 1 : 0;
+            if (i == val.length()) {
+                return invalid(val, "BigInteger");
+            }
+            for (; i < val.length(); i++) {
+                if (Character.digit(val.charAt(i), 10) < 0) {
+                    return invalid(val, "BigInteger");
+                }
+            }
+            return Result.success(new BigInteger(val));
+        }
     }
 
     class BooleanParser implements StringConverter<Boolean> {
@@ -87,31 +424,160 @@ public interface StringConverter<T> {
         public Boolean convert(String val) {
             return Boolean.valueOf(val);
         }
+
+        @Override
+        public Result<Boolean> tryConvert(String val) {
+            return Result.success(Boolean.valueOf(val));
+        }
     }
 
     /**
-     * next to decoding supports using color names like red
+     * Supports hexadecimal notation and color names. Hexadecimal notations are #rgb, #rgba, #rrggbb and #rrggbbaa, for
+     * other lengths the value after the # is used as rgb number like {@link Color#decode(java.lang.String) } does.
+     * Before 10.1, values were always decoded as rgb number, so #rgb, #rgba and #rrggbbaa have a new meaning: #fff used
+     * to be 0x000fff, #1234 used to be 0x001234 and #7fffffff used to be 0xffffff with the alpha ignored, it is now
+     * red 0x7f, green 0xff, blue 0xff and alpha 0xff.
+     * Names are the constants of {@link Color} and the CSS / SVG named colors, case insensitive. Where a name means
+     * another color in CSS the {@link Color} constant is used, to stay compatible with earlier versions: green is
+     * 0x00ff00 (CSS 0x008000), orange is 0xffc800 (CSS 0xffa500), pink is 0xffafaf (CSS 0xffc0cb), lightgray is
+     * 0xc0c0c0 (CSS 0xd3d3d3) and darkgray is 0x404040 (CSS 0xa9a9a9). Names are looked up in a table that is built
+     * once.
      */
     class ColorParser implements StringConverter<Color> {
 
+        private static final String CSS_COLORS = "aliceblue f0f8ff antiquewhite faebd7 aqua 00ffff aquamarine 7fffd4 "
+                + "azure f0ffff beige f5f5dc bisque ffe4c4 black 000000 blanchedalmond ffebcd blue 0000ff "
+                + "blueviolet 8a2be2 brown a52a2a burlywood deb887 cadetblue 5f9ea0 chartreuse 7fff00 "
+                + "chocolate d2691e coral ff7f50 cornflowerblue 6495ed cornsilk fff8dc crimson dc143c cyan 00ffff "
+                + "darkblue 00008b darkcyan 008b8b darkgoldenrod b8860b darkgray a9a9a9 darkgreen 006400 "
+                + "darkgrey a9a9a9 darkkhaki bdb76b darkmagenta 8b008b darkolivegreen 556b2f darkorange ff8c00 "
+                + "darkorchid 9932cc darkred 8b0000 darksalmon e9967a darkseagreen 8fbc8f darkslateblue 483d8b "
+                + "darkslategray 2f4f4f darkslategrey 2f4f4f darkturquoise 00ced1 darkviolet 9400d3 deeppink ff1493 "
+                + "deepskyblue 00bfff dimgray 696969 dimgrey 696969 dodgerblue 1e90ff firebrick b22222 "
+                + "floralwhite fffaf0 forestgreen 228b22 fuchsia ff00ff gainsboro dcdcdc ghostwhite f8f8ff "
+                + "gold ffd700 goldenrod daa520 gray 808080 green 008000 greenyellow adff2f grey 808080 "
+                + "honeydew f0fff0 hotpink ff69b4 indianred cd5c5c indigo 4b0082 ivory fffff0 khaki f0e68c "
+                + "lavender e6e6fa lavenderblush fff0f5 lawngreen 7cfc00 lemonchiffon fffacd lightblue add8e6 "
+                + "lightcoral f08080 lightcyan e0ffff lightgoldenrodyellow fafad2 lightgray d3d3d3 lightgreen 90ee90 "
+                + "lightgrey d3d3d3 lightpink ffb6c1 lightsalmon ffa07a lightseagreen 20b2aa lightskyblue 87cefa "
+                + "lightslategray 778899 lightslategrey 778899 lightsteelblue b0c4de lightyellow ffffe0 lime 00ff00 "
+                + "limegreen 32cd32 linen faf0e6 magenta ff00ff maroon 800000 mediumaquamarine 66cdaa "
+                + "mediumblue 0000cd mediumorchid ba55d3 mediumpurple 9370db mediumseagreen 3cb371 "
+                + "mediumslateblue 7b68ee mediumspringgreen 00fa9a mediumturquoise 48d1cc mediumvioletred c71585 "
+                + "midnightblue 191970 mintcream f5fffa mistyrose ffe4e1 moccasin ffe4b5 navajowhite ffdead "
+                + "navy 000080 oldlace fdf5e6 olive 808000 olivedrab 6b8e23 orange ffa500 orangered ff4500 "
+                + "orchid da70d6 palegoldenrod eee8aa palegreen 98fb98 paleturquoise afeeee palevioletred db7093 "
+                + "papayawhip ffefd5 peachpuff ffdab9 peru cd853f pink ffc0cb plum dda0dd powderblue b0e0e6 "
+                + "purple 800080 rebeccapurple 663399 red ff0000 rosybrown bc8f8f royalblue 4169e1 saddlebrown 8b4513 "
+                + "salmon fa8072 sandybrown f4a460 seagreen 2e8b57 seashell fff5ee sienna a0522d silver c0c0c0 "
+                + "skyblue 87ceeb slateblue 6a5acd slategray 708090 slategrey 708090 snow fffafa springgreen 00ff7f "
+                + "steelblue 4682b4 tan d2b48c teal 008080 thistle d8bfd8 tomato ff6347 turquoise 40e0d0 "
+                + "violet ee82ee wheat f5deb3 white ffffff whitesmoke f5f5f5 yellow ffff00 yellowgreen 9acd32 "
+                + "transparent 00000000";
+
+        /**
+         * lower case names without underscores
+         */
+        private static final Map<String, Color> NAMED = new HashMap<>(256);
+
+        static {
+            String[] css = CSS_COLORS.split(" ");
+            for (int i = 0; i < css.length; i += 2) {
+                NAMED.put(css[i], parseHex("#" + css[i + 1]));
+            }
+            // Color constants replace the CSS values for green, orange, pink, lightgray and darkgray
+            for (Field f : Color.class.getFields()) {
+                if (Modifier.isStatic(f.getModifiers()) && f.getType() == Color.class) {
+                    try {
+                        NAMED.put(normalize(f.getName()), (Color) f.get(null));
+                    } catch (IllegalAccessException ex) {
+                        throw new VectorPrintRuntimeException(ex);
+                    }
+                }
+            }
+        }
+
+        private static String normalize(String name) {
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '_' || (c >= 'A' && c <= 'Z')) {
+                    return name.replace("_", "").toLowerCase(Locale.ROOT);
+                }
+            }
+            return name;
+        }
+
+        private static int hex(char c) {
+            if (c >= '0' && c <= '9') {
+                return c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                return c - 'a' + 10;
+            } else if (c >= 'A' && c <= 'F') {
+                return c - 'A' + 10;
+            }
+            return -1;
+        }
+
+        /**
+         * @param value a value starting with #
+         * @return a color or null when the value is not valid
+         */
+        private static Color parseHex(String value) {
+            int len = value.length() - 1;
+            if (len < 1) {
+                return null;
+            }
+            if (len == 3 || len == 4 || len == 6 || len == 8) {
+                int width = len < 6 ? 1 : 2;
+                int components = len / width;
+                int rgba = 0;
+                for (int i = 1; i <= len; i += width) {
+                    int v = 0;
+                    for (int j = 0; j < width; j++) {
+                        int h = hex(value.charAt(i + j));
+                        if (h < 0) {
+                            return null;
+                        }
+                        v = v * 16 + h;
+                    }
+                    rgba = rgba << 8 | (width == 1 ? v * 17 : v);
+                }
+                return components == 3
+                        ? new Color(rgba)
+                        : new Color(rgba >>> 8 | rgba << 24, true);
+            }
+            for (int i = 1; i <= len; i++) {
+                if (hex(value.charAt(i)) < 0) {
+                    return null;
+                }
+            }
+            Long rgb = parseLong(value, 1, 16, 0, Integer.MAX_VALUE);
+            return rgb == null ? null : new Color(rgb.intValue());
+        }
+
+        @Override
+        public Result<Color> tryConvert(String value) {
+            if (value == null) {
+                return invalid(value, "Color");
+            }
+            Color c = value.indexOf('#') == 0 ? parseHex(value) : NAMED.get(normalize(value));
+            return c == null ? invalid(value, "Color") : Result.success(c);
+        }
+
         @Override
         public Color convert(String value) {
             if (value.indexOf('#') == 0) {
-                return Color.decode(value);
-            } else {
-                Field f;
-                try {
-                    // assume name
-                    f = Color.class.getField(value);
-                } catch (NoSuchFieldException | SecurityException ex) {
-                    throw new VectorPrintRuntimeException(ex);
-                }
-                try {
-                    return (Color) f.get(null);
-                } catch (IllegalArgumentException | IllegalAccessException ex) {
-                    throw new VectorPrintRuntimeException(ex);
+                Color c = parseHex(value);
+                if (c == null) {
+                    throw new NumberFormatException(String.format("cannot turn %s into Color", value));
                 }
+                return c;
+            }
+            Color c = NAMED.get(normalize(value));
+            if (c == null) {
+                throw new VectorPrintRuntimeException(String.format("cannot turn %s into Color", value));
             }
+            return c;
         }
     }
 
@@ -137,6 +603,48 @@ public interface StringConverter<T> {
                 throw new VectorPrintRuntimeException("file " + val + " does not exist, unable to construct url", ex);
             }
         }
+
+        /**
+         * Only when val starts with a scheme a URL is constructed directly, via {@link URI#toURL() }, an unknown
+         * protocol will still lead to a MalformedURLException internally.
+         */
+        @Override
+        public Result<URL> tryConvert(String val) {
+            if (val == null) {
+                return invalid(val, "URL");
+            }
+            if (hasScheme(val)) {
+                try {
+                    return Result.success(new URI(val).toURL());
+                } catch (URISyntaxException | MalformedURLException | IllegalArgumentException ex) {
+                    // invalid or unknown protocol, may be a file
+                }
+            }
+            File file = new File(val);
+            if (file.exists()) {
+                try {
+                    return Result.success(file.toURI().toURL());
+                } catch (MalformedURLException ex) {
+                    return Result.failure(ex.getMessage());
+                }
+            }
+            return Result.failure("file " + val + " does not exist, unable to construct url");
+        }
+
+        private static boolean hasScheme(String val) {
+            int colon = val.indexOf(':');
+            // a single letter is a windows drive
+            if (colon < 2 || !Character.isLetter(val.charAt(0))) {
+                return false;
+            }
+            for (int i = 1; i < colon; i++) {
+                char c = val.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     /**
@@ -148,6 +656,11 @@ public interface StringConverter<T> {
         public File convert(String val) {
             return new File(val);
         }
+
+        @Override
+        public Result<File> tryConvert(String val) {
+            return val == null ? invalid(val, "File") : Result.success(new File(val));
+        }
     }
 
     class ClassParser implements StringConverter<Class> {
@@ -161,6 +674,28 @@ public interface StringConverter<T> {
             }
         }
 
+        /**
+         * Checks whether the class file can be found before loading the class, for array names {@link Class#forName(java.lang.String)
+         * } is called directly.
+         */
+        @Override
+        public Result<Class> tryConvert(String val) {
+            if (val == null || val.isEmpty()) {
+                return invalid(val, "Class");
+            }
+            if (val.charAt(0) != '[') {
+                ClassLoader loader = ClassParser.class.getClassLoader();
+                String resource = val.replace('.', '/') + ".class";
+                if (loader == null ? ClassLoader.getSystemResource(resource) == null : loader.getResource(resource) == null) {
+                    return invalid(val, "Class");
+                }
+            }
+            try {
+                return Result.success(Class.forName(val));
+            } catch (ClassNotFoundException | LinkageError ex) {
+                return Result.failure(ex.toString());
+            }
+        }
     }
 
     class IntParser implements StringConverter<Integer> {
@@ -169,6 +704,12 @@ public interface StringConverter<T> {
         public Integer convert(String val) {
             return Integer.valueOf(val);
         }
+
+        @Override
+        public Result<Integer> tryConvert(String val) {
+            Long l = parseLong(val, 0, 10, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            return l == null ? invalid(val, "Integer") : Result.success(l.intValue());
+        }
     }
 
     class CharParser implements StringConverter<Character> {
@@ -182,6 +723,14 @@ public interface StringConverter<T> {
             }
             return val.charAt(0);
         }
+
+        @Override
+        public Result<Character> tryConvert(String val) {
+            if (val == null || val.isEmpty()) {
+                return Result.success(null);
+            }
+            return val.length() > 1 ? invalid(val, "one Character") : Result.success(val.charAt(0));
+        }
     }
 
     class ShortParser implements StringConverter<Short> {
@@ -190,6 +739,12 @@ public interface StringConverter<T> {
         public Short convert(String val) {
             return Short.valueOf(val);
         }
+
+        @Override
+        public Result<Short> tryConvert(String val) {
+            Long l = parseLong(val, 0, 10, Short.MIN_VALUE, Short.MAX_VALUE);
+            return l == null ? invalid(val, "Short") : Result.success(l.shortValue());
+        }
     }
 
     class ByteParser implements StringConverter<Byte> {
@@ -198,12 +753,450 @@ public interface StringConverter<T> {
         public Byte convert(String val) {
             return Byte.decode(val);
         }
+
+        @Override
+        public Result<Byte> tryConvert(String val) {
+            Long l = decodeLong(val, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            return l == null ? invalid(val, "Byte") : Result.success(l.byteValue());
+        }
     }
-     class LocalDateTimeParser implements StringConverter<LocalDateTime> {
+    /**
+     * Fixed width ISO values are parsed by hand, other values by {@link LocalDateTime#parse(java.lang.CharSequence) }.
+     */
+    class LocalDateTimeParser implements StringConverter<LocalDateTime> {
 
         @Override
         public LocalDateTime convert(String val) {
-            return LocalDateTime.parse(val);
+            LocalDateTime ldt = val == null ? null : FastIsoDateTime.parseLocalDateTime(val);
+            return ldt != null ? ldt : LocalDateTime.parse(val);
+        }
+
+        /**
+         * Validates and parses yyyy-MM-ddTHH:mm[:ss[.fraction]] by hand, only for other (expanded year) input {@link LocalDateTime#parse(java.lang.CharSequence)
+         * } is called.
+         */
+        @Override
+        public Result<LocalDateTime> tryConvert(String val) {
+            if (val == null) {
+                return invalid(val, "LocalDateTime");
+            }
+            if (!val.isEmpty() && (val.charAt(0) == '+' || val.charAt(0) == '-')) {
+                return parseOrFailure(val, LocalDateTime::parse);
+            }
+            LocalDateTime ldt = FastIsoDateTime.parseLocalDateTime(val);
+            return ldt == null ? invalid(val, "LocalDateTime") : Result.success(ldt);
+        }
+    }
+
+    /**
+     * Fixed width ISO values are parsed by hand, other values by {@link LocalDate#parse(java.lang.CharSequence) }.
+     */
+    class LocalDateParser implements StringConverter<LocalDate> {
+
+        @Override
+        public LocalDate convert(String val) {
+            LocalDate ld = val == null ? null : FastIsoDateTime.parseLocalDate(val, 0, val.length());
+            return ld != null ? ld : LocalDate.parse(val);
+        }
+
+        @Override
+        public Result<LocalDate> tryConvert(String val) {
+            LocalDate ld = val == null ? null : FastIsoDateTime.parseLocalDate(val, 0, val.length());
+            return ld != null ? Result.success(ld) : parseOrFailure(val, LocalDate::parse);
+        }
+    }
+
+    /**
+     * Fixed width ISO values are parsed by hand, other values by {@link LocalTime#parse(java.lang.CharSequence) }.
+     */
+    class LocalTimeParser implements StringConverter<LocalTime> {
+
+        @Override
+        public LocalTime convert(String val) {
+            LocalTime lt = val == null ? null : FastIsoDateTime.parseLocalTime(val, 0, val.length());
+            return lt != null ? lt : LocalTime.parse(val);
+        }
+
+        @Override
+        public Result<LocalTime> tryConvert(String val) {
+            LocalTime lt = val == null ? null : FastIsoDateTime.parseLocalTime(val, 0, val.length());
+            return lt != null ? Result.success(lt) : parseOrFailure(val, LocalTime::parse);
+        }
+    }
+
+    /**
+     * Fixed width ISO values are parsed by hand, other values by {@link OffsetDateTime#parse(java.lang.CharSequence) }.
+     */
+    class OffsetDateTimeParser implements StringConverter<OffsetDateTime> {
+
+        @Override
+        public OffsetDateTime convert(String val) {
+            OffsetDateTime odt = val == null ? null : FastIsoDateTime.parseOffsetDateTime(val);
+            return odt != null ? odt : OffsetDateTime.parse(val);
+        }
+
+        @Override
+        public Result<OffsetDateTime> tryConvert(String val) {
+            OffsetDateTime odt = val == null ? null : FastIsoDateTime.parseOffsetDateTime(val);
+            return odt != null ? Result.success(odt) : parseOrFailure(val, OffsetDateTime::parse);
+        }
+    }
+
+    /**
+     * Uses {@link ZonedDateTime#parse(java.lang.CharSequence) }.
+     */
+    class ZonedDateTimeParser implements StringConverter<ZonedDateTime> {
+
+        @Override
+        public ZonedDateTime convert(String val) {
+            return ZonedDateTime.parse(val);
+        }
+
+        @Override
+        public Result<ZonedDateTime> tryConvert(String val) {
+            return parseOrFailure(val, ZonedDateTime::parse);
+        }
+    }
+
+    /**
+     * Values like 2021-02-12T00:59:10Z are parsed by hand, other values by {@link Instant#parse(java.lang.CharSequence) }.
+     */
+    class InstantParser implements StringConverter<Instant> {
+
+        @Override
+        public Instant convert(String val) {
+            Instant i = val == null ? null : FastIsoDateTime.parseInstant(val);
+            return i != null ? i : Instant.parse(val);
+        }
+
+        @Override
+        public Result<Instant> tryConvert(String val) {
+            Instant i = val == null ? null : FastIsoDateTime.parseInstant(val);
+            return i != null ? Result.success(i) : parseOrFailure(val, Instant::parse);
+        }
+    }
+
+    /**
+     * Uses {@link Duration#parse(java.lang.CharSequence) }, for example PT1H30M.
+     */
+    class DurationParser implements StringConverter<Duration> {
+
+        @Override
+        public Duration convert(String val) {
+            return Duration.parse(val);
+        }
+
+        @Override
+        public Result<Duration> tryConvert(String val) {
+            return parseOrFailure(val, Duration::parse);
+        }
+    }
+
+    /**
+     * Parses dates and times using a pattern, see {@link DateTimeFormatter#ofPattern(java.lang.String, java.util.Locale)
+     * }. Formatters are immutable, they are shared by all instances with the same pattern and locale through a small
+     * least recently used cache.
+     * <pre>
+     * StringConverter&lt;LocalDate&gt; dates = new DateTimePatternParser&lt;&gt;("dd-MM-yyyy", LocalDate::from);
+     * </pre>
+     *
+     * @param <T>
+     */
+    class DateTimePatternParser<T> implements StringConverter<T> {
+
+        private static final int MAX_FORMATTERS = 64;
+
+        private record FormatterKey(String pattern, Locale locale) {
+        }
+
+        private static final Map<FormatterKey, DateTimeFormatter> FORMATTERS = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FormatterKey, DateTimeFormatter> eldest) {
+                return size() > MAX_FORMATTERS;
+            }
+        };
+
+        private static DateTimeFormatter formatter(String pattern, Locale locale) {
+            FormatterKey key = new FormatterKey(pattern, locale);
+            synchronized (FORMATTERS) {
+                DateTimeFormatter f = FORMATTERS.get(key);
+                if (f == null) {
+                    f = DateTimeFormatter.ofPattern(pattern, locale);
+                    FORMATTERS.put(key, f);
+                }
+                return f;
+            }
+        }
+
+        private final DateTimeFormatter formatter;
+        private final TemporalQuery<T> query;
+
+        /**
+         * @param pattern the pattern
+         * @param locale the locale, used for example for month names
+         * @param query for example LocalDate::from
+         */
+        public DateTimePatternParser(String pattern, Locale locale, TemporalQuery<T> query) {
+            this.formatter = formatter(pattern, locale);
+            this.query = query;
+        }
+
+        /**
+         * @param pattern the pattern, the default locale at construction is used
+         * @param query for example LocalDate::from
+         */
+        public DateTimePatternParser(String pattern, TemporalQuery<T> query) {
+            this(pattern, Locale.getDefault(Locale.Category.FORMAT), query);
+        }
+
+        @Override
+        public T convert(String val) {
+            return formatter.parse(val, query);
+        }
+
+        /**
+         * The syntax is validated without exceptions, only when resolving the parsed fields fails (for example February
+         * 30th) a DateTimeException is caught.
+         */
+        @Override
+        public Result<T> tryConvert(String val) {
+            if (val == null) {
+                return invalid(val, "date or time");
+            }
+            ParsePosition pos = new ParsePosition(0);
+            if (formatter.parseUnresolved(val, pos) == null || pos.getIndex() != val.length()) {
+                return invalid(val, "date or time");
+            }
+            return parseOrFailure(val, v -> formatter.parse(v, query));
+        }
+    }
+
+    /**
+     * returns the value itself, useful as element converter for arrays, Lists and Maps
+     */
+    class StringParser implements StringConverter<String> {
+
+        @Override
+        public String convert(String val) {
+            return val;
+        }
+
+        @Override
+        public Result<String> tryConvert(String val) {
+            return Result.success(val);
+        }
+    }
+
+    /**
+     * Converts the name of an enum constant using a map of names to constants built once.
+     *
+     * @param <E>
+     */
+    class EnumParser<E extends Enum<E>> implements StringConverter<E> {
+
+        private final Class<E> enumClass;
+        private final Map<String, E> constants;
+
+        public EnumParser(Class<E> enumClass) {
+            this.enumClass = enumClass;
+            E[] values = enumClass.getEnumConstants();
+            constants = new HashMap<>(values.length * 2);
+            for (E e : values) {
+                constants.put(e.name(), e);
+            }
+        }
+
+        @Override
+        public E convert(String val) {
+            E e = val == null ? null : constants.get(val);
+            if (e == null) {
+                throw new VectorPrintRuntimeException(String.format("cannot turn %s into %s", val, enumClass.getName()));
+            }
+            return e;
+        }
+
+        @Override
+        public Result<E> tryConvert(String val) {
+            E e = val == null ? null : constants.get(val);
+            return e == null ? invalid(val, enumClass.getName()) : Result.success(e);
+        }
+    }
+
+    /**
+     * splits on {@link #SEPARATOR} and trims the parts, an empty or blank value yields no parts
+     */
+    private static String[] split(String val) {
+        if (val.isBlank()) {
+            return new String[0];
+        }
+        String[] parts = val.split(String.valueOf(SEPARATOR), -1);
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = parts[i].trim();
+        }
+        return parts;
+    }
+
+    /**
+     * separates the elements of arrays, Lists and Maps
+     */
+    char SEPARATOR = ',';
+
+    /**
+     * separates keys from values in Maps
+     */
+    char KEY_VALUE_SEPARATOR = '=';
+
+    /**
+     * Converts values separated by {@link #SEPARATOR} into an array of a primitive or object type.
+     */
+    class ArrayParser implements StringConverter<Object> {
+
+        private final Class<?> componentType;
+        private final StringConverter<?> elementConverter;
+
+        public ArrayParser(Class<?> componentType, StringConverter<?> elementConverter) {
+            this.componentType = componentType;
+            this.elementConverter = elementConverter;
+        }
+
+        @Override
+        public Object convert(String val) {
+            String[] parts = split(val);
+            Object array = Array.newInstance(componentType, parts.length);
+            for (int i = 0; i < parts.length; i++) {
+                Object o = elementConverter.convert(parts[i]);
+                if (o == null && componentType.isPrimitive()) {
+                    throw new VectorPrintRuntimeException(String.format("cannot turn %s into %s", parts[i], componentType.getName()));
+                }
+                Array.set(array, i, o);
+            }
+            return array;
+        }
+
+        @Override
+        public Result<Object> tryConvert(String val) {
+            if (val == null) {
+                return invalid(val, componentType.getName() + "[]");
+            }
+            String[] parts = split(val);
+            Object array = Array.newInstance(componentType, parts.length);
+            for (int i = 0; i < parts.length; i++) {
+                Result<?> r = elementConverter.tryConvert(parts[i]);
+                if (!r.isSuccess()) {
+                    return Result.failure(r.error());
+                }
+                if (r.value() == null && componentType.isPrimitive()) {
+                    return invalid(parts[i], componentType.getName());
+                }
+                Array.set(array, i, r.value());
+            }
+            return Result.success(array);
+        }
+    }
+
+    /**
+     * Converts values separated by {@link #SEPARATOR} into a List.
+     *
+     * @param <E>
+     */
+    class ListParser<E> implements StringConverter<List<E>> {
+
+        private final StringConverter<E> elementConverter;
+        private final Supplier<List<E>> factory;
+
+        public ListParser(StringConverter<E> elementConverter, Supplier<List<E>> factory) {
+            this.elementConverter = elementConverter;
+            this.factory = factory;
+        }
+
+        public ListParser(StringConverter<E> elementConverter) {
+            this(elementConverter, ArrayList::new);
+        }
+
+        @Override
+        public List<E> convert(String val) {
+            List<E> list = factory.get();
+            for (String part : split(val)) {
+                list.add(elementConverter.convert(part));
+            }
+            return list;
+        }
+
+        @Override
+        public Result<List<E>> tryConvert(String val) {
+            if (val == null) {
+                return invalid(val, "List");
+            }
+            List<E> list = factory.get();
+            for (String part : split(val)) {
+                Result<E> r = elementConverter.tryConvert(part);
+                if (!r.isSuccess()) {
+                    return Result.failure(r.error());
+                }
+                list.add(r.value());
+            }
+            return Result.success(list);
+        }
+    }
+
+    /**
+     * Converts key{@link #KEY_VALUE_SEPARATOR}value pairs separated by {@link #SEPARATOR} into a Map, keys and values
+     * are trimmed.
+     *
+     * @param <K>
+     * @param <V>
+     */
+    class MapParser<K, V> implements StringConverter<Map<K, V>> {
+
+        private final StringConverter<K> keyConverter;
+        private final StringConverter<V> valueConverter;
+        private final Supplier<Map<K, V>> factory;
+
+        public MapParser(StringConverter<K> keyConverter, StringConverter<V> valueConverter, Supplier<Map<K, V>> factory) {
+            this.keyConverter = keyConverter;
+            this.valueConverter = valueConverter;
+            this.factory = factory;
+        }
+
+        public MapParser(StringConverter<K> keyConverter, StringConverter<V> valueConverter) {
+            this(keyConverter, valueConverter, LinkedHashMap::new);
+        }
+
+        @Override
+        public Map<K, V> convert(String val) {
+            Map<K, V> map = factory.get();
+            for (String part : split(val)) {
+                int sep = part.indexOf(KEY_VALUE_SEPARATOR);
+                if (sep < 0) {
+                    throw new VectorPrintRuntimeException(String.format("%s is not a key%svalue pair", part, KEY_VALUE_SEPARATOR));
+                }
+                map.put(keyConverter.convert(part.substring(0, sep).trim()), valueConverter.convert(part.substring(sep + 1).trim()));
+            }
+            return map;
+        }
+
+        @Override
+        public Result<Map<K, V>> tryConvert(String val) {
+            if (val == null) {
+                return invalid(val, "Map");
+            }
+            Map<K, V> map = factory.get();
+            for (String part : split(val)) {
+                int sep = part.indexOf(KEY_VALUE_SEPARATOR);
+                if (sep < 0) {
+                    return Result.failure(String.format("%s is not a key%svalue pair", part, KEY_VALUE_SEPARATOR));
+                }
+                Result<K> k = keyConverter.tryConvert(part.substring(0, sep).trim());
+                if (!k.isSuccess()) {
+                    return Result.failure(k.error());
+                }
+                Result<V> v = valueConverter.tryConvert(part.substring(sep + 1).trim());
+                if (!v.isSuccess()) {
+                    return Result.failure(v.error());
+                }
+                map.put(k.value(), v.value());
+            }
+            return Result.success(map);
         }
     }
 
@@ -213,6 +1206,22 @@ public interface StringConverter<T> {
         public Pattern convert(String val) {
             return Pattern.compile(val);
         }
+
+        /**
+         * There is no way to validate a regular expression without compiling it, so a PatternSyntaxException is caught
+         * here.
+         */
+        @Override
+        public Result<Pattern> tryConvert(String val) {
+            if (val == null) {
+                return invalid(val, "Pattern");
+            }
+            try {
+                return Result.success(Pattern.compile(val));
+            } catch (PatternSyntaxException ex) {
+                return Result.failure(ex.getMessage());
+            }
+        }
     }
     IntParser INT_PARSER = new IntParser();
     CharParser CHAR_PARSER = new CharParser();
@@ -229,7 +1238,14 @@ public interface StringConverter<T> {
     BooleanParser BOOLEAN_PARSER = new BooleanParser();
     ColorParser COLOR_PARSER = new ColorParser();
     LocalDateTimeParser LOCAL_DATE_TIME_PARSER = new LocalDateTimeParser();
+    LocalDateParser LOCAL_DATE_PARSER = new LocalDateParser();
+    LocalTimeParser LOCAL_TIME_PARSER = new LocalTimeParser();
+    OffsetDateTimeParser OFFSET_DATE_TIME_PARSER = new OffsetDateTimeParser();
+    ZonedDateTimeParser ZONED_DATE_TIME_PARSER = new ZonedDateTimeParser();
+    InstantParser INSTANT_PARSER = new InstantParser();
+    DurationParser DURATION_PARSER = new DurationParser();
     RegexParser REGEX_PARSER = new RegexParser();
+    StringParser STRING_PARSER = new StringParser();
 
     static StringConverter forClass(Class clazz) {
         if (Integer.class.equals(clazz)||int.class.equals(clazz)) {
@@ -262,9 +1278,39 @@ public interface StringConverter<T> {
             return COLOR_PARSER;
         } else if (LocalDateTime.class.equals(clazz)) {
             return LOCAL_DATE_TIME_PARSER;
+        } else if (LocalDate.class.equals(clazz)) {
+            return LOCAL_DATE_PARSER;
+        } else if (LocalTime.class.equals(clazz)) {
+            return LOCAL_TIME_PARSER;
+        } else if (OffsetDateTime.class.equals(clazz)) {
+            return OFFSET_DATE_TIME_PARSER;
+        } else if (ZonedDateTime.class.equals(clazz)) {
+            return ZONED_DATE_TIME_PARSER;
+        } else if (Instant.class.equals(clazz)) {
+            return INSTANT_PARSER;
+        } else if (Duration.class.equals(clazz)) {
+            return DURATION_PARSER;
         } else if (Pattern.class.equals(clazz)) {
             return REGEX_PARSER;
+        } else if (String.class.equals(clazz)) {
+            return STRING_PARSER;
+        } else if (clazz != null && ConverterCache.isComposed(clazz)) {
+            return forType(clazz);
         }
         throw new IllegalArgumentException(clazz + " not supported");
     }
+
+    /**
+     * Next to what {@link #forClass(java.lang.Class) } supports, returns converters for enums, arrays, Lists and Maps,
+     * for example for the generic type of a field or method parameter. Element, key and value types are resolved
+     * using {@link ClassHelper}, also for subclasses like <code>class Colors extends ArrayList&lt;Color&gt;</code>,
+     * these need a public no argument constructor. Converters are composed once per type and cached.
+     *
+     * @param type
+     * @return
+     * @throws IllegalArgumentException when the type or one of its element types is not supported
+     */
+    static StringConverter forType(Type type) {
+        return ConverterCache.forType(type);
+    }
 }
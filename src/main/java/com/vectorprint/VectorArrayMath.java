@@ -0,0 +1,109 @@
+package com.vectorprint;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link ArrayMath}, only loaded when the jdk.incubator.vector module is present. Loops
+ * process {@link #SPECIES} lanes at a time and finish the tail with plain code.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+final class VectorArrayMath {
+
+   private VectorArrayMath() {
+   }
+
+   private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+   static void scale(float[] values, float factor) {
+      int i = 0;
+      for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+         FloatVector.fromArray(SPECIES, values, i).mul(factor).intoArray(values, i);
+      }
+      for (; i < values.length; i++) {
+         values[i] *= factor;
+      }
+   }
+
+   static void translate(float[] values, float offset) {
+      int i = 0;
+      for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+         FloatVector.fromArray(SPECIES, values, i).add(offset).intoArray(values, i);
+      }
+      for (; i < values.length; i++) {
+         values[i] += offset;
+      }
+   }
+
+   static void scaleAndTranslate(float[] values, float factor, float offset) {
+      int i = 0;
+      // no fma, results must be equal to the scalar implementation
+      for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+         FloatVector.fromArray(SPECIES, values, i).mul(factor).add(offset).intoArray(values, i);
+      }
+      for (; i < values.length; i++) {
+         values[i] = values[i] * factor + offset;
+      }
+   }
+
+   static float min(float[] values) {
+      int i = 0;
+      FloatVector acc = FloatVector.broadcast(SPECIES, Float.POSITIVE_INFINITY);
+      for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+         acc = acc.min(FloatVector.fromArray(SPECIES, values, i));
+      }
+      float min = acc.reduceLanes(VectorOperators.MIN);
+      for (; i < values.length; i++) {
+         min = Math.min(min, values[i]);
+      }
+      return min;
+   }
+
+   static float max(float[] values) {
+      int i = 0;
+      FloatVector acc = FloatVector.broadcast(SPECIES, Float.NEGATIVE_INFINITY);
+      for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+         acc = acc.max(FloatVector.fromArray(SPECIES, values, i));
+      }
+      float max = acc.reduceLanes(VectorOperators.MAX);
+      for (; i < values.length; i++) {
+         max = Math.max(max, values[i]);
+      }
+      return max;
+   }
+
+   static float sum(float[] values) {
+      int i = 0;
+      FloatVector acc = FloatVector.zero(SPECIES);
+      for (int bound = SPECIES.loopBound(values.length); i < bound; i += SPECIES.length()) {
+         acc = acc.add(FloatVector.fromArray(SPECIES, values, i));
+      }
+      float sum = acc.reduceLanes(VectorOperators.ADD);
+      for (; i < values.length; i++) {
+         sum += values[i];
+      }
+      return sum;
+   }
+}
@@ -25,6 +25,11 @@ import java.io.PrintWriter;
 
 public class VectorPrintException extends Exception {
 
+   /**
+    * Preallocated stackless instance, see {@link VectorPrintRuntimeException#INVALID}.
+    */
+   public static final VectorPrintException INVALID = stackless("invalid value");
+
    public VectorPrintException(Throwable cause) {
       super(cause);
    }
@@ -37,6 +42,41 @@ public class VectorPrintException extends Exception {
       super(message);
    }
 
+   /**
+    * Constructor to control suppression and filling in the stack trace, see {@link Throwable#Throwable(java.lang.String, java.lang.Throwable, boolean, boolean)
+    * }
+    *
+    * @param message
+    * @param cause
+    * @param enableSuppression
+    * @param writableStackTrace
+    */
+   protected VectorPrintException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+      super(message, cause, enableSuppression, writableStackTrace);
+   }
+
+   /**
+    * Create an exception without a stack trace and suppression, see {@link VectorPrintRuntimeException#stackless(java.lang.String, java.lang.Throwable)
+    * }.
+    *
+    * @param message
+    * @param cause
+    * @return
+    */
+   public static VectorPrintException stackless(String message, Throwable cause) {
+      return new VectorPrintException(message, cause, false, false);
+   }
+
+   /**
+    * Calls {@link #stackless(java.lang.String, java.lang.Throwable) } without a cause.
+    *
+    * @param message
+    * @return
+    */
+   public static VectorPrintException stackless(String message) {
+      return stackless(message, null);
+   }
+
    /**
     * print th e stacktace of the deepest cause found
     */
@@ -25,6 +25,12 @@ import java.io.PrintWriter;
 
 public class VectorPrintRuntimeException extends RuntimeException {
 
+   /**
+    * Preallocated stackless instance for hot validation paths where the message suffices, it can be thrown from any
+    * thread because its state cannot be changed.
+    */
+   public static final VectorPrintRuntimeException INVALID = stackless("invalid value");
+
    public VectorPrintRuntimeException(Throwable cause) {
       super(cause);
    }
@@ -37,6 +43,43 @@ public class VectorPrintRuntimeException extends RuntimeException {
       super(message);
    }
 
+   /**
+    * Constructor to control suppression and filling in the stack trace, see {@link Throwable#Throwable(java.lang.String, java.lang.Throwable, boolean, boolean)
+    * }
+    *
+    * @param message
+    * @param cause
+    * @param enableSuppression
+    * @param writableStackTrace
+    */
+   protected VectorPrintRuntimeException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+      super(message, cause, enableSuppression, writableStackTrace);
+   }
+
+   /**
+    * Create an exception without a stack trace and suppression, which is much cheaper to construct. Meant for
+    * validation failures that are expected and handled, for example when checking untrusted input. Because such an
+    * exception carries no call site information it can also be created once, stored in a static final field and thrown
+    * repeatedly, see {@link #INVALID}.
+    *
+    * @param message
+    * @param cause
+    * @return
+    */
+   public static VectorPrintRuntimeException stackless(String message, Throwable cause) {
+      return new VectorPrintRuntimeException(message, cause, false, false);
+   }
+
+   /**
+    * Calls {@link #stackless(java.lang.String, java.lang.Throwable) } without a cause.
+    *
+    * @param message
+    * @return
+    */
+   public static VectorPrintRuntimeException stackless(String message) {
+      return stackless(message, null);
+   }
+
    /**
     * print the stacktace of the deepest cause found
     */
@@ -28,12 +28,24 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 public class VersionInfo {
 
@@ -44,23 +56,64 @@ public class VersionInfo {
 
    /**
     * print versioninfo for jar files on the classpath, or, alternatively, from jar files provided in space seperated
-    * arguments
+    * arguments. Arguments before the jar files may be:
+    * <ul>
+    * <li>-json: print a json array, see {@link #toJson(java.util.Collection) }</li>
+    * <li>-cyclonedx: print a CycloneDX bom, see {@link #toCycloneDx(java.util.Collection) }</li>
+    * <li>-inventory &lt;file&gt;: only rescan changed jars and print the differences with the previous run, see {@link #getVersionInfoDiff(java.lang.String[], java.nio.file.Path)
+    * }, can be combined with -json</li>
+    * </ul>
     *
     * @param args
     * @throws IOException
     */
    public static void main(String[] args) throws IOException {
-      if (args != null && args.length > 0) {
-         for (VersionInformation mi : getVersionInfo(args).values()) {
-            System.out.println(mi);
+      String format = "text";
+      Path inventory = null;
+      int i = 0;
+      while (args != null && i < args.length && args[i].startsWith("-")) {
+         switch (args[i]) {
+            case "-json" -> format = "json";
+            case "-cyclonedx" -> format = "cyclonedx";
+            case "-inventory" -> {
+               if (++i == args.length) {
+                  usage();
+                  return;
+               }
+               inventory = Path.of(args[i]);
+            }
+            default -> throw new IllegalArgumentException("unknown option " + args[i]);
          }
-      } else {
-         for (VersionInformation mi : getVersionInfo().values()) {
-            System.out.println(mi);
+         i++;
+      }
+      if (inventory != null && "cyclonedx".equals(format)) {
+         throw new IllegalArgumentException("-cyclonedx cannot be combined with -inventory");
+      }
+      String[] parts = args == null || i == args.length
+              ? System.getProperty("java.class.path").split(File.pathSeparator)
+              : Arrays.copyOfRange(args, i, args.length);
+      if (inventory != null) {
+         VersionDiff diff = getVersionInfoDiff(parts, inventory);
+         System.out.println("json".equals(format) ? diff.toJson() : diff.toString());
+         return;
+      }
+      Collection<VersionInformation> info = args != null && i < args.length
+              ? getVersionInfo(parts).values() : getVersionInfo().values();
+      switch (format) {
+         case "json" -> System.out.println(toJson(info));
+         case "cyclonedx" -> System.out.println(toCycloneDx(info));
+         default -> {
+            for (VersionInformation mi : info) {
+               System.out.println(mi);
+            }
          }
       }
    }
 
+   private static void usage() {
+      System.err.println("usage: VersionInfo [-json | -cyclonedx] [-inventory <file>] [jar ...]");
+   }
+
    /**
     * Print the version of all the libraries found in the class path.
     */
@@ -127,12 +180,257 @@ public class VersionInfo {
                  });
          if (ret.isEmpty()) {
             // try manifest
-            if (zipFile.getManifest().getMainAttributes().containsKey(Attributes.Name.IMPLEMENTATION_VERSION)) {
+            Manifest manifest = zipFile.getManifest();
+            if (manifest != null && manifest.getMainAttributes().containsKey(Attributes.Name.IMPLEMENTATION_VERSION)) {
                ret.put(entry, new VersionInformation(entry, "unknown",
-                       zipFile.getManifest().getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_VERSION), "unknown", file.length()));
+                       manifest.getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_VERSION), "unknown", file.length()));
+            }
+         }
+      }
+   }
+
+   /**
+    * Rescans only the jars whose modification time or size differ from the ones recorded in the inventory file, writes
+    * the new inventory and returns the differences with the previous run. Jars without version information are recorded
+    * in the inventory as well, so they are not rescanned while unchanged, they are not part of the differences. When
+    * the inventory file does not exist or cannot be parsed all jars are reported as added.
+    *
+    * @param parts array containing paths of jar files
+    * @param inventory the file holding the inventory of the previous run
+    * @return the differences with the previous run
+    * @throws IOException
+    */
+   public static VersionDiff getVersionInfoDiff(String[] parts, Path inventory) throws IOException {
+      Map<String, InventoryEntry> previous = readInventory(inventory);
+      Map<String, InventoryEntry> current = new TreeMap<>();
+      for (String part : parts) {
+         File file = new File(part);
+         if (!file.isFile()) {
+            continue;
+         }
+         InventoryEntry old = previous.get(part);
+         if (old != null && old.lastModified == file.lastModified() && old.size == file.length()) {
+            current.put(part, old);
+         } else {
+            Map<String, VersionInformation> scanned = new HashMap<>(1);
+            addFromEntry(part, scanned);
+            // null info marks a jar without version information
+            current.put(part, new InventoryEntry(file.lastModified(), file.length(), scanned.get(part)));
+         }
+      }
+      writeInventory(inventory, current);
+
+      VersionDiff diff = new VersionDiff();
+      current.forEach((part, entry) -> {
+         InventoryEntry old = previous.get(part);
+         if (entry.info == null) {
+            return;
+         }
+         if (old == null || old.info == null) {
+            diff.added.put(part, entry.info);
+         } else if (!old.info.equals(entry.info)) {
+            diff.changed.put(part, entry.info);
+         }
+      });
+      previous.forEach((part, entry) -> {
+         InventoryEntry cur = current.get(part);
+         if (entry.info != null && (cur == null || cur.info == null)) {
+            diff.removed.put(part, entry.info);
+         }
+      });
+      return diff;
+   }
+
+   /**
+    * @param info null for a jar without version information
+    */
+   private record InventoryEntry(long lastModified, long size, VersionInformation info) {
+   }
+
+   private static Map<String, InventoryEntry> readInventory(Path inventory) throws IOException {
+      Map<String, InventoryEntry> rv = new TreeMap<>();
+      if (!Files.isRegularFile(inventory)) {
+         return rv;
+      }
+      Properties props = new Properties();
+      try (Reader r = Files.newBufferedReader(inventory, StandardCharsets.UTF_8)) {
+         props.load(r);
+         for (String part : props.stringPropertyNames()) {
+            // lastModified|size|groupId|artifactId|version|buildDate, or lastModified|size without version information
+            List<String> v = unescape(props.getProperty(part));
+            if (v.size() == 6) {
+               long size = Long.parseLong(v.get(1));
+               rv.put(part, new InventoryEntry(Long.parseLong(v.get(0)), size,
+                       new VersionInformation(v.get(3), v.get(2), v.get(4), v.get(5), size)));
+            } else if (v.size() == 2) {
+               rv.put(part, new InventoryEntry(Long.parseLong(v.get(0)), Long.parseLong(v.get(1)), null));
+            } else {
+               LOG.warn("skipping invalid inventory entry for {}", part);
+            }
+         }
+      } catch (IllegalArgumentException e) {
+         // also NumberFormatException
+         LOG.warn(String.format("invalid inventory %s, rescanning all jars", inventory), e);
+         rv.clear();
+      }
+      return rv;
+   }
+
+   /**
+    * escapes \ and | so | can separate fields, null is written as an empty field
+    */
+   private static String escape(String field) {
+      return field == null ? "" : field.replace("\\", "\\\\").replace("|", "\\|");
+   }
+
+   /**
+    * splits on unescaped | and unescapes the fields
+    */
+   private static List<String> unescape(String value) {
+      List<String> fields = new ArrayList<>(6);
+      StringBuilder field = new StringBuilder();
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if (c == '\\' && i + 1 < value.length()) {
+            field.append(value.charAt(++i));
+         } else if (c == '|') {
+            fields.add(field.toString());
+            field.setLength(0);
+         } else {
+            field.append(c);
+         }
+      }
+      fields.add(field.toString());
+      return fields;
+   }
+
+   private static void writeInventory(Path inventory, Map<String, InventoryEntry> entries) throws IOException {
+      Properties props = new Properties();
+      entries.forEach((part, e) -> props.setProperty(part, e.info == null
+              ? String.join("|", String.valueOf(e.lastModified), String.valueOf(e.size))
+              : String.join("|", String.valueOf(e.lastModified), String.valueOf(e.size), escape(e.info.groupId),
+                      escape(e.info.artifactId), escape(e.info.version), escape(e.info.buildDate))));
+      try (Writer w = Files.newBufferedWriter(inventory, StandardCharsets.UTF_8)) {
+         props.store(w, "VersionInfo inventory");
+      }
+   }
+
+   /**
+    * @param info
+    * @return a json array holding the version information
+    */
+   public static String toJson(Collection<VersionInformation> info) {
+      StringBuilder sb = new StringBuilder("[");
+      for (VersionInformation mi : info) {
+         if (sb.length() > 1) {
+            sb.append(',');
+         }
+         sb.append(mi.toJson());
+      }
+      return sb.append(']').toString();
+   }
+
+   /**
+    * @param info
+    * @return a minimal CycloneDX (1.5) bom in json format holding the version information as library components
+    */
+   public static String toCycloneDx(Collection<VersionInformation> info) {
+      StringBuilder sb = new StringBuilder("{\"bomFormat\":\"CycloneDX\",\"specVersion\":\"1.5\",\"version\":1,\"components\":[");
+      boolean first = true;
+      for (VersionInformation mi : info) {
+         if (!first) {
+            sb.append(',');
+         }
+         first = false;
+         sb.append("{\"type\":\"library\",\"group\":").append(jsonString(mi.groupId))
+                 .append(",\"name\":").append(jsonString(mi.artifactId))
+                 .append(",\"version\":").append(jsonString(mi.version));
+         if (mi.groupId != null && mi.artifactId != null && mi.version != null) {
+            sb.append(",\"purl\":").append(jsonString("pkg:maven/" + mi.groupId + '/' + mi.artifactId + '@' + mi.version));
+         }
+         sb.append('}');
+      }
+      return sb.append("]}").toString();
+   }
+
+   /**
+    * @return s as a quoted json string, or null
+    */
+   private static String jsonString(String s) {
+      if (s == null) {
+         return "null";
+      }
+      StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+      for (int i = 0; i < s.length(); i++) {
+         char c = s.charAt(i);
+         switch (c) {
+            case '"' -> sb.append("\\\"");
+            case '\\' -> sb.append("\\\\");
+            case '\n' -> sb.append("\\n");
+            case '\r' -> sb.append("\\r");
+            case '\t' -> sb.append("\\t");
+            default -> {
+               if (c < 0x20) {
+                  sb.append(String.format("\\u%04x", (int) c));
+               } else {
+                  sb.append(c);
+               }
             }
          }
       }
+      return sb.append('"').toString();
+   }
+
+   private static String toJson(Map<String, VersionInformation> info) {
+      StringBuilder sb = new StringBuilder("{");
+      info.forEach((part, mi) -> {
+         if (sb.length() > 1) {
+            sb.append(',');
+         }
+         sb.append(jsonString(part)).append(':').append(mi.toJson());
+      });
+      return sb.append('}').toString();
+   }
+
+   /**
+    * Differences between two scans, see {@link #getVersionInfoDiff(java.lang.String[], java.nio.file.Path) }. The maps
+    * are keyed by jar path.
+    */
+   public static class VersionDiff {
+
+      /**
+       * jars not present in the previous scan
+       */
+      public final Map<String, VersionInformation> added = new TreeMap<>();
+      /**
+       * jars not present anymore, holding the previous information
+       */
+      public final Map<String, VersionInformation> removed = new TreeMap<>();
+      /**
+       * jars whose version information changed, holding the new information
+       */
+      public final Map<String, VersionInformation> changed = new TreeMap<>();
+
+      private VersionDiff() {
+      }
+
+      public boolean isEmpty() {
+         return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+      }
+
+      public String toJson() {
+         return "{\"added\":" + VersionInfo.toJson(added) + ",\"removed\":" + VersionInfo.toJson(removed)
+                 + ",\"changed\":" + VersionInfo.toJson(changed) + '}';
+      }
+
+      @Override
+      public String toString() {
+         List<String> lines = new ArrayList<>(added.size() + removed.size() + changed.size());
+         added.forEach((part, mi) -> lines.add("added " + part + ": " + mi));
+         removed.forEach((part, mi) -> lines.add("removed " + part + ": " + mi));
+         changed.forEach((part, mi) -> lines.add("changed " + part + ": " + mi));
+         return lines.isEmpty() ? "no changes" : String.join(System.lineSeparator(), lines);
+      }
    }
 
    /**
@@ -169,9 +467,35 @@ public class VersionInfo {
          this.size = size;
       }
 
+      /**
+       * @return this information as a json object
+       */
+      public String toJson() {
+         return "{\"groupId\":" + jsonString(groupId) + ",\"artifactId\":" + jsonString(artifactId)
+                 + ",\"version\":" + jsonString(version) + ",\"buildDate\":" + jsonString(buildDate)
+                 + ",\"size\":" + size + '}';
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) {
+            return true;
+         }
+         if (!(o instanceof VersionInformation other)) {
+            return false;
+         }
+         return size == other.size && Objects.equals(artifactId, other.artifactId) && Objects.equals(groupId, other.groupId)
+                 && Objects.equals(version, other.version) && Objects.equals(buildDate, other.buildDate);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hash(artifactId, groupId, version, buildDate, size);
+      }
+
       @Override
       public String toString() {
-         String name = artifactId.equals(groupId) ? artifactId : (groupId + '/' + artifactId);
+         String name = Objects.equals(artifactId, groupId) ? artifactId : (groupId + '/' + artifactId);
          return "name: " + name + ", version: " + version + ", buildDate: " +
                  buildDate + ", size: " + formatNumber("#,##0", size);
       }
@@ -0,0 +1,348 @@
+package com.vectorprint.certificates;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.vectorprint.ArrayHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Caches certificates, keystores and private keys loaded via {@link CertificateHelper}, so expensive parsing (for
+ * example the key derivation when loading PKCS12) is done once per source. Entries are keyed by a source identity
+ * (for example a file name or url) and an HMAC-SHA256 of the content and password, so changed content or another
+ * password leads to a reload. The HMAC key is random per cache, so keys do not reveal passwords. Password arguments
+ * will be cleared after use, also when the result comes from the cache. Cached {@link KeyStore}s are shared, callers
+ * should not modify them. The cache holds a maximum number of entries, the least recently used entries are evicted
+ * first. Concurrent requests for the same entry wait for one thread to load it.
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public class CertificateCache {
+
+   private static final String HMAC = "HmacSHA256";
+   private static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+   /**
+    * Mac instances per thread, they are initialized with the key of the calling cache before use
+    */
+   private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+      try {
+         return Mac.getInstance(HMAC);
+      } catch (NoSuchAlgorithmException ex) {
+         throw new IllegalStateException(ex);
+      }
+   });
+
+   private record Key(String kind, String source, Object detail, String digest) {
+   }
+
+   private record Entry(CompletableFuture<Object> value, long created) {
+   }
+
+   private final Map<Key, Entry> cache;
+   /**
+    * weak keys so keystores and their key material are not kept alive by entries for their private keys
+    */
+   private final Map<KeyStore, Long> keyStoreIds = new WeakHashMap<>();
+   private long nextKeyStoreId;
+   private final long ttlNanos;
+   private final SecretKeySpec hmacKey;
+
+   /**
+    * @param ttl the time entries are valid, null means entries never expire
+    * @param maximumSize the maximum number of entries
+    */
+   public CertificateCache(Duration ttl, int maximumSize) {
+      if (maximumSize < 1) {
+         throw new IllegalArgumentException("maximumSize should be positive: " + maximumSize);
+      }
+      ttlNanos = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+      cache = new LinkedHashMap<>(16, 0.75f, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maximumSize;
+         }
+      };
+      byte[] random = new byte[32];
+      new SecureRandom().nextBytes(random);
+      hmacKey = new SecretKeySpec(random, HMAC);
+      ArrayHelper.clear(random);
+   }
+
+   /**
+    * Cache holding at most 256 entries
+    *
+    * @param ttl the time entries are valid, null means entries never expire
+    */
+   public CertificateCache(Duration ttl) {
+      this(ttl, DEFAULT_MAXIMUM_SIZE);
+   }
+
+   /**
+    * Cache without expiry holding at most 256 entries
+    */
+   public CertificateCache() {
+      this(null);
+   }
+
+   /**
+    * calls {@link #loadCertificate(java.lang.String, java.io.InputStream, java.lang.String) } with X.509
+    *
+    * @param source
+    * @param in
+    * @return
+    * @throws IOException
+    * @throws CertificateException
+    */
+   public Certificate loadCertificate(String source, InputStream in) throws IOException, CertificateException {
+      return loadCertificate(source, in, "X.509");
+   }
+
+   /**
+    * returns a cached certificate or loads it using {@link CertificateHelper#loadCertificate(java.io.InputStream, java.lang.String)
+    * }
+    *
+    * @param source identity of the source of the stream
+    * @param in
+    * @param type
+    * @return
+    * @throws IOException
+    * @throws CertificateException
+    */
+   public Certificate loadCertificate(String source, InputStream in, String type) throws IOException, CertificateException {
+      byte[] content = in.readAllBytes();
+      try {
+         Key key = new Key("certificate", source, type, digest(content, null));
+         Entry reservation = reservation();
+         Object cached = getOrReserve(key, reservation);
+         if (cached != null) {
+            return (Certificate) cached;
+         }
+         try {
+            Certificate cert = CertificateHelper.loadCertificate(ByteBuffer.wrap(content), type);
+            reservation.value.complete(cert);
+            return cert;
+         } catch (Exception ex) {
+            release(key, reservation, ex);
+            throw ex;
+         }
+      } finally {
+         ArrayHelper.clear(content);
+      }
+   }
+
+   /**
+    * returns a cached keystore or loads it using {@link CertificateHelper#loadKeyStore(java.io.InputStream, java.lang.String, char[])
+    * }
+    *
+    * @param source identity of the source of the stream
+    * @param in
+    * @param keystoretype
+    * @param password
+    * @return
+    * @throws KeyStoreException
+    * @throws IOException
+    * @throws NoSuchAlgorithmException
+    * @throws CertificateException
+    */
+   public KeyStore loadKeyStore(String source, InputStream in, String keystoretype, char[] password) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException {
+      byte[] content = in.readAllBytes();
+      try {
+         Key key = new Key("keystore", source, keystoretype, digest(content, password));
+         Entry reservation = reservation();
+         Object cached = getOrReserve(key, reservation);
+         if (cached != null) {
+            return (KeyStore) cached;
+         }
+         try {
+            KeyStore ks = CertificateHelper.loadKeyStore(ByteBuffer.wrap(content), keystoretype, password);
+            reservation.value.complete(ks);
+            return ks;
+         } catch (Exception ex) {
+            release(key, reservation, ex);
+            throw ex;
+         }
+      } finally {
+         ArrayHelper.clear(content);
+         ArrayHelper.clear(password);
+      }
+   }
+
+   /**
+    * returns a cached private key or retrieves it using {@link CertificateHelper#getKey(java.security.KeyStore, java.lang.String, char[])
+    * }. Entries are bound to the keystore instance without keeping it alive, the source is used for {@link #evict(java.lang.String)
+    * }.
+    *
+    * @param source identity of the source of the keystore
+    * @param ks
+    * @param alias
+    * @param password
+    * @return
+    * @throws KeyStoreException
+    * @throws NoSuchAlgorithmException
+    * @throws UnrecoverableKeyException
+    */
+   public PrivateKey getKey(String source, KeyStore ks, String alias, char[] password) throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException {
+      try {
+         Key key = new Key("key", source, keyStoreId(ks) + "/" + alias, digest(new byte[0], password));
+         Entry reservation = reservation();
+         Object cached = getOrReserve(key, reservation);
+         if (cached != null) {
+            return (PrivateKey) cached;
+         }
+         try {
+            PrivateKey pk = CertificateHelper.getKey(ks, alias, password);
+            reservation.value.complete(pk);
+            return pk;
+         } catch (Exception ex) {
+            release(key, reservation, ex);
+            throw ex;
+         }
+      } finally {
+         ArrayHelper.clear(password);
+      }
+   }
+
+   private long keyStoreId(KeyStore ks) {
+      synchronized (keyStoreIds) {
+         return keyStoreIds.computeIfAbsent(ks, k -> ++nextKeyStoreId);
+      }
+   }
+
+   /**
+    * remove all entries for a source
+    *
+    * @param source
+    */
+   public void evict(String source) {
+      synchronized (cache) {
+         cache.keySet().removeIf(k -> k.source.equals(source));
+      }
+   }
+
+   /**
+    * remove all expired entries
+    */
+   public void evictExpired() {
+      long now = System.nanoTime();
+      synchronized (cache) {
+         cache.values().removeIf(e -> expired(e, now));
+      }
+   }
+
+   /**
+    * remove all entries
+    */
+   public void clear() {
+      synchronized (cache) {
+         cache.clear();
+      }
+   }
+
+   public int size() {
+      synchronized (cache) {
+         return cache.size();
+      }
+   }
+
+   private static Entry reservation() {
+      return new Entry(new CompletableFuture<>(), System.nanoTime());
+   }
+
+   /**
+    * @return the cached value, or null when the reservation was stored and the caller should load the value
+    */
+   private Object getOrReserve(Key key, Entry reservation) {
+      while (true) {
+         Entry e;
+         synchronized (cache) {
+            e = cache.get(key);
+            if (e == null || expired(e, System.nanoTime())) {
+               cache.put(key, reservation);
+               return null;
+            }
+         }
+         try {
+            return e.value.join();
+         } catch (CompletionException | CancellationException ex) {
+            // loading failed in another thread, which removed its reservation
+         }
+      }
+   }
+
+   /**
+    * remove a reservation for which loading failed, threads waiting for it will try to load themselves
+    */
+   private void release(Key key, Entry reservation, Exception ex) {
+      synchronized (cache) {
+         cache.remove(key, reservation);
+      }
+      reservation.value.completeExceptionally(ex);
+   }
+
+   private boolean expired(Entry e, long now) {
+      return ttlNanos != Long.MAX_VALUE && now - e.created > ttlNanos;
+   }
+
+   private String digest(byte[] content, char[] password) {
+      Mac md = MACS.get();
+      try {
+         md.init(hmacKey);
+      } catch (InvalidKeyException ex) {
+         throw new IllegalStateException(ex);
+      }
+      md.update(content);
+      if (password != null) {
+         ByteBuffer bb = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+         byte[] pw = new byte[bb.remaining()];
+         bb.get(pw);
+         md.update(pw);
+         ArrayHelper.clear(pw);
+         if (bb.hasArray()) {
+            ArrayHelper.clear(bb.array());
+         }
+      }
+      return HexFormat.of().formatHex(md.doFinal());
+   }
+}
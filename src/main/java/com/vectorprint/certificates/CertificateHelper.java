@@ -24,23 +24,37 @@ package com.vectorprint.certificates;
 
 
 import com.vectorprint.ArrayHelper;
+import com.vectorprint.VectorPrintRuntimeException;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Provider;
 import java.security.UnrecoverableKeyException;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Methods to load certificates, keystores and private keys. Password arguments will be cleared after use, see {@link ArrayHelper#clear(char[]) }.
+ * Streams are parsed directly, no copies of key material are made. Files are memory mapped.
  * You need to configure a {@link Provider security provider} in the jvm or programmatically.
  * 
  * @author Eduard Drenth at VectorPrint.nl
@@ -49,6 +63,21 @@ public class CertificateHelper {
    
    private CertificateHelper() {}
 
+   /**
+    * CertificateFactory is not guaranteed to be thread safe, factories are cached per thread and type
+    */
+   private static final ThreadLocal<Map<String, CertificateFactory>> FACTORIES = ThreadLocal.withInitial(() -> new HashMap<>(2));
+
+   private static CertificateFactory factory(String type) throws CertificateException {
+      Map<String, CertificateFactory> factories = FACTORIES.get();
+      CertificateFactory cf = factories.get(type);
+      if (cf == null) {
+         cf = CertificateFactory.getInstance(type);
+         factories.put(type, cf);
+      }
+      return cf;
+   }
+
    /**
     * calls {@link #loadCertificate(java.io.InputStream, java.lang.String) } with X.509
     * @param in
@@ -67,10 +96,109 @@ public class CertificateHelper {
     * @return
     */
    public static Certificate loadCertificate(InputStream in, String type) throws IOException, CertificateException {
-         ByteArrayOutputStream out = new ByteArrayOutputStream();
-         in.transferTo(out);
-         return CertificateFactory.getInstance(type)
-             .generateCertificate(new ByteArrayInputStream(out.toByteArray()));
+      return factory(type)
+          .generateCertificate(in.markSupported() ? in : new BufferedInputStream(in));
+   }
+
+   /**
+    * calls {@link #loadCertificates(java.io.InputStream, java.lang.String) } with X.509
+    * @param in
+    * @return
+    * @throws CertificateException
+    */
+   public static Collection<? extends Certificate> loadCertificates(InputStream in) throws CertificateException {
+      return loadCertificates(in, "X.509");
+   }
+
+   /**
+    * loads all certificates (for example a PEM bundle or PKCS#7 chain) from a stream in one pass
+    * @param in
+    * @param type
+    * @return
+    * @throws CertificateException
+    */
+   public static Collection<? extends Certificate> loadCertificates(InputStream in, String type) throws CertificateException {
+      return factory(type).generateCertificates(in.markSupported() ? in : new BufferedInputStream(in));
+   }
+
+   /**
+    * calls {@link #loadCRLs(java.io.InputStream, java.lang.String) } with X.509
+    * @param in
+    * @return
+    * @throws CertificateException
+    * @throws CRLException
+    */
+   public static Collection<? extends CRL> loadCRLs(InputStream in) throws CertificateException, CRLException {
+      return loadCRLs(in, "X.509");
+   }
+
+   /**
+    * loads all certificate revocation lists from a stream in one pass
+    * @param in
+    * @param type
+    * @return
+    * @throws CertificateException
+    * @throws CRLException
+    */
+   public static Collection<? extends CRL> loadCRLs(InputStream in, String type) throws CertificateException, CRLException {
+      return factory(type).generateCRLs(in.markSupported() ? in : new BufferedInputStream(in));
+   }
+
+   /**
+    * loads all certificates from the regular files in a directory in parallel, files are memory mapped.
+    * @param directory
+    * @param type
+    * @return the certificates in the order of the file names
+    * @throws IOException
+    * @throws CertificateException
+    */
+   public static List<Certificate> loadCertificatesFromDirectory(Path directory, String type) throws IOException, CertificateException {
+      List<Path> files;
+      try (Stream<Path> list = Files.list(directory)) {
+         files = list.filter(Files::isRegularFile).sorted().toList();
+      }
+      try {
+         List<Certificate> rv = new ArrayList<>(files.size());
+         files.parallelStream()
+             .map(file -> {
+                try {
+                   return loadCertificates(new ByteBufferInputStream(map(file)), type);
+                } catch (IOException | CertificateException e) {
+                   throw new VectorPrintRuntimeException(file.toString(), e);
+                }
+             })
+             .forEachOrdered(rv::addAll);
+         return rv;
+      } catch (VectorPrintRuntimeException e) {
+         // an exception from a worker thread may be wrapped in a copy by the fork join framework
+         while (e.getCause() instanceof VectorPrintRuntimeException vpe) {
+            e = vpe;
+         }
+         if (e.getCause() instanceof CertificateException ce) {
+            throw new CertificateException(e.getMessage(), ce);
+         }
+         throw new IOException(e.getMessage(), e.getCause());
+      }
+   }
+
+   /**
+    * loads a certificate from the remaining bytes in a buffer, the position of the buffer is not changed
+    * @param buffer
+    * @param type
+    * @return
+    */
+   public static Certificate loadCertificate(ByteBuffer buffer, String type) throws IOException, CertificateException {
+      return loadCertificate(new ByteBufferInputStream(buffer), type);
+   }
+
+   /**
+    * loads a certificate from a memory mapped file
+    * @param path
+    * @param type
+    * @return
+    */
+   public static Certificate loadCertificate(Path path, String type) throws IOException, CertificateException {
+      return loadCertificate(map(path), type);
    }
 
    /**
@@ -81,12 +209,104 @@ public class CertificateHelper {
     * @return
     */
    public static KeyStore loadKeyStore(InputStream in, String keystoretype, char[] password) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException {
+      try {
          KeyStore ks = KeyStore.getInstance(keystoretype);
-         ByteArrayOutputStream out = new ByteArrayOutputStream();
-         in.transferTo(out);
-         ks.load(new ByteArrayInputStream(out.toByteArray()), password);
-         ArrayHelper.clear(password);
+         ks.load(in, password);
          return ks;
+      } finally {
+         ArrayHelper.clear(password);
+      }
+   }
+
+   /**
+    * loads a keystore from the remaining bytes in a buffer, the position of the buffer is not changed
+    * @param buffer
+    * @param keystoretype
+    * @param password
+    * @return
+    */
+   public static KeyStore loadKeyStore(ByteBuffer buffer, String keystoretype, char[] password) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException {
+      return loadKeyStore(new ByteBufferInputStream(buffer), keystoretype, password);
+   }
+
+   /**
+    * loads a keystore from a memory mapped file
+    * @param path
+    * @param keystoretype
+    * @param password
+    * @return
+    */
+   public static KeyStore loadKeyStore(Path path, String keystoretype, char[] password) throws KeyStoreException, IOException, NoSuchAlgorithmException, CertificateException {
+      try {
+         return loadKeyStore(map(path), keystoretype, password);
+      } finally {
+         ArrayHelper.clear(password);
+      }
+   }
+
+   private static ByteBuffer map(Path path) throws IOException {
+      try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+         return fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+      }
+   }
+
+   /**
+    * reads from a buffer without copying it, supports mark and reset
+    */
+   private static class ByteBufferInputStream extends InputStream {
+
+      private final ByteBuffer buffer;
+      private int mark;
+
+      private ByteBufferInputStream(ByteBuffer buffer) {
+         this.buffer = buffer.duplicate();
+         mark = this.buffer.position();
+      }
+
+      @Override
+      public int read() {
+         return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+         if (len == 0) {
+            return 0;
+         }
+         if (!buffer.hasRemaining()) {
+            return -1;
+         }
+         int n = Math.min(len, buffer.remaining());
+         buffer.get(b, off, n);
+         return n;
+      }
+
+      @Override
+      public long skip(long n) {
+         int s = (int) Math.max(0, Math.min(n, buffer.remaining()));
+         buffer.position(buffer.position() + s);
+         return s;
+      }
+
+      @Override
+      public int available() {
+         return buffer.remaining();
+      }
+
+      @Override
+      public boolean markSupported() {
+         return true;
+      }
+
+      @Override
+      public void mark(int readlimit) {
+         mark = buffer.position();
+      }
+
+      @Override
+      public void reset() {
+         buffer.position(mark);
+      }
    }
 
    /**
@@ -100,9 +320,11 @@ public class CertificateHelper {
     * @throws UnrecoverableKeyException 
     */
    public static PrivateKey getKey(KeyStore ks, String alias, char[] password) throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException {
-      PrivateKey k = (PrivateKey) ks.getKey(alias, password);
-      ArrayHelper.clear(password);
-      return k;
+      try {
+         return (PrivateKey) ks.getKey(alias, password);
+      } finally {
+         ArrayHelper.clear(password);
+      }
    }
 
    /**
@@ -0,0 +1,209 @@
+package com.vectorprint.certificates;
+
+/*-
+ * #%L
+ * VectorPrintCommon
+ * %%
+ * Copyright (C) 2011 - 2026 E. Drenth Software
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.security.InvalidKeyException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.UnrecoverableKeyException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock free pool of {@link Signature} objects initialized for signing with one private key, so {@link Signature#getInstance(java.lang.String)
+ * } and {@link Signature#initSign(java.security.PrivateKey) } are not called per document. After {@link Signature#sign() }
+ * a Signature is reset to its initialized state, so it can be reused. When all Signatures are in use a new one is
+ * created, at most maxIdle Signatures are kept when they are released, others are left to the garbage collector.
+ * Works for platform and virtual threads alike.
+ * <pre>
+ * SignaturePool pool = new SignaturePool(ks, "1", password, "SHA256withRSA", 4, 16);
+ * byte[] signature = pool.sign(document);
+ * </pre>
+ *
+ * @author Eduard Drenth at VectorPrint.nl
+ */
+public class SignaturePool {
+
+   private final Queue<Signature> pool = new ConcurrentLinkedQueue<>();
+   private final AtomicInteger idle = new AtomicInteger();
+   private final PrivateKey key;
+   private final String algorithm;
+   private final int maxIdle;
+
+   /**
+    * Calls {@link #SignaturePool(java.security.KeyStore, java.lang.String, char[], java.lang.String, int, int) } with
+    * maxIdle the larger of prewarm and the number of available processors.
+    *
+    * @param ks
+    * @param alias
+    * @param password
+    * @param algorithm for example SHA256withRSA
+    * @param prewarm the number of Signatures to initialize upfront
+    * @throws KeyStoreException
+    * @throws NoSuchAlgorithmException
+    * @throws UnrecoverableKeyException
+    * @throws InvalidKeyException
+    */
+   public SignaturePool(KeyStore ks, String alias, char[] password, String algorithm, int prewarm) throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException, InvalidKeyException {
+      this(ks, alias, password, algorithm, prewarm, defaultMaxIdle(prewarm));
+   }
+
+   /**
+    * Retrieves the key using {@link CertificateHelper#getKey(java.security.KeyStore, java.lang.String, char[]) }, the
+    * password will be cleared.
+    *
+    * @param ks
+    * @param alias
+    * @param password
+    * @param algorithm for example SHA256withRSA
+    * @param prewarm the number of Signatures to initialize upfront
+    * @param maxIdle the maximum number of Signatures kept in the pool
+    * @throws KeyStoreException
+    * @throws NoSuchAlgorithmException
+    * @throws UnrecoverableKeyException
+    * @throws InvalidKeyException
+    */
+   public SignaturePool(KeyStore ks, String alias, char[] password, String algorithm, int prewarm, int maxIdle) throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException, InvalidKeyException {
+      this(CertificateHelper.getKey(ks, alias, password), algorithm, prewarm, maxIdle);
+   }
+
+   /**
+    * Calls {@link #SignaturePool(java.security.PrivateKey, java.lang.String, int, int) } with maxIdle the larger of
+    * prewarm and the number of available processors.
+    *
+    * @param key
+    * @param algorithm for example SHA256withRSA
+    * @param prewarm the number of Signatures to initialize upfront
+    * @throws NoSuchAlgorithmException
+    * @throws InvalidKeyException
+    */
+   public SignaturePool(PrivateKey key, String algorithm, int prewarm) throws NoSuchAlgorithmException, InvalidKeyException {
+      this(key, algorithm, prewarm, defaultMaxIdle(prewarm));
+   }
+
+   /**
+    *
+    * @param key
+    * @param algorithm for example SHA256withRSA
+    * @param prewarm the number of Signatures to initialize upfront
+    * @param maxIdle the maximum number of Signatures kept in the pool
+    * @throws NoSuchAlgorithmException
+    * @throws InvalidKeyException
+    */
+   public SignaturePool(PrivateKey key, String algorithm, int prewarm, int maxIdle) throws NoSuchAlgorithmException, InvalidKeyException {
+      if (maxIdle < 1) {
+         throw new IllegalArgumentException(String.format("invalid maxIdle %d", maxIdle));
+      }
+      this.key = key;
+      this.algorithm = algorithm;
+      this.maxIdle = maxIdle;
+      for (int i = 0; i < Math.min(Math.max(1, prewarm), maxIdle); i++) {
+         pool.offer(create());
+         idle.incrementAndGet();
+      }
+   }
+
+   private static int defaultMaxIdle(int prewarm) {
+      return Math.max(prewarm, Runtime.getRuntime().availableProcessors());
+   }
+
+   private Signature create() throws NoSuchAlgorithmException, InvalidKeyException {
+      Signature s = Signature.getInstance(algorithm);
+      s.initSign(key);
+      return s;
+   }
+
+   /**
+    * take an initialized Signature from the pool, or create one when the pool is empty. Call {@link #release(java.security.Signature)
+    * } after {@link Signature#sign() }.
+    *
+    * @return
+    */
+   public Signature borrow() {
+      Signature s = pool.poll();
+      if (s != null) {
+         idle.decrementAndGet();
+         return s;
+      }
+      try {
+         return create();
+      } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+         // already succeeded during construction
+         throw new IllegalStateException(ex);
+      }
+   }
+
+   /**
+    * return a Signature to the pool, only do this after {@link Signature#sign() } succeeded, otherwise it may hold
+    * data from a previous document. When the pool already holds maxIdle Signatures this one is discarded.
+    *
+    * @param s
+    */
+   public void release(Signature s) {
+      if (idle.incrementAndGet() <= maxIdle) {
+         pool.offer(s);
+      } else {
+         idle.decrementAndGet();
+      }
+   }
+
+   /**
+    * sign data using a pooled Signature
+    *
+    * @param data
+    * @return the signature bytes
+    * @throws SignatureException
+    */
+   public byte[] sign(byte[] data) throws SignatureException {
+      Signature s = borrow();
+      byte[] rv = null;
+      try {
+         s.update(data);
+         rv = s.sign();
+         return rv;
+      } finally {
+         // a Signature in an unknown state is discarded
+         if (rv != null) {
+            release(s);
+         }
+      }
+   }
+
+   public String getAlgorithm() {
+      return algorithm;
+   }
+
+   public int getMaxIdle() {
+      return maxIdle;
+   }
+
+   /**
+    * @return the number of idle Signatures in the pool
+    */
+   public int size() {
+      return idle.get();
+   }
+}
@@ -23,15 +23,40 @@ package com.vectorprint;
  */
 
 
+import com.vectorprint.certificates.CertificateCache;
 import com.vectorprint.certificates.CertificateHelper;
+import com.vectorprint.certificates.SignaturePool;
+import com.vectorprint.testing.ThreadTester;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.PrivateKey;
+import java.security.PublicKey;
 import java.security.Security;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  *
@@ -61,4 +86,166 @@ public class CertificateTest {
           "pkcs12", "password".toCharArray());
       PrivateKey key = CertificateHelper.getKey(ks, "1", "password".toCharArray());
    }
+
+   @Test
+   public void testLoadFromPathAndBuffer() throws Exception {
+      Path pfx = Path.of("src/test/resources/eduarddrenth-TECRA-S11.pfx");
+      KeyStore ks = CertificateHelper.loadKeyStore(pfx, "pkcs12", "password".toCharArray());
+      Assertions.assertNotNull(CertificateHelper.getKey(ks, "password".toCharArray()));
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(pfx));
+      ks = CertificateHelper.loadKeyStore(buffer, "pkcs12", "password".toCharArray());
+      Assertions.assertEquals(0, buffer.position());
+      Assertions.assertTrue(ks.containsAlias("1"));
+
+      Path crt = Path.of("src/test/resources/eduarddrenth-TECRA-S11.crt");
+      Assertions.assertEquals(CertificateHelper.loadCertificate(crt, "X.509"),
+          CertificateHelper.loadCertificate(ByteBuffer.wrap(Files.readAllBytes(crt)), "X.509"));
+   }
+
+   @Test
+   public void testLoadCertificates() throws Exception {
+      byte[] crt = Files.readAllBytes(Path.of("src/test/resources/eduarddrenth-TECRA-S11.crt"));
+      ByteArrayOutputStream bundle = new ByteArrayOutputStream();
+      bundle.write(crt);
+      bundle.write(crt);
+      Assertions.assertEquals(2, CertificateHelper.loadCertificates(new ByteArrayInputStream(bundle.toByteArray())).size());
+
+      Path dir = Files.createTempDirectory("certs");
+      try {
+         Files.write(dir.resolve("a.crt"), crt);
+         Files.write(dir.resolve("b.pem"), bundle.toByteArray());
+         Assertions.assertEquals(3, CertificateHelper.loadCertificatesFromDirectory(dir, "X.509").size());
+         Files.writeString(dir.resolve("c.crt"), "no certificate");
+         Assertions.assertThrows(CertificateException.class, () -> CertificateHelper.loadCertificatesFromDirectory(dir, "X.509"));
+      } finally {
+         try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : files.toList()) {
+               Files.delete(p);
+            }
+         }
+         Files.delete(dir);
+      }
+   }
+
+   @Test
+   public void testSignaturePool() throws Throwable {
+      KeyStore ks = CertificateHelper.loadKeyStore(Path.of("src/test/resources/eduarddrenth-TECRA-S11.pfx"),
+          "pkcs12", "password".toCharArray());
+      SignaturePool pool = new SignaturePool(ks, "1", "password".toCharArray(), "SHA256withRSA", 2);
+      Assertions.assertEquals(2, pool.size());
+      PublicKey pub = ks.getCertificate("1").getPublicKey();
+      List<Runnable> signers = new ArrayList<>(8);
+      for (int i = 0; i < 8; i++) {
+         byte[] data = ("document " + i).getBytes(StandardCharsets.UTF_8);
+         signers.add(() -> {
+            try {
+               for (int j = 0; j < 10; j++) {
+                  Signature verify = Signature.getInstance("SHA256withRSA");
+                  verify.initVerify(pub);
+                  verify.update(data);
+                  Assertions.assertTrue(verify.verify(pool.sign(data)));
+               }
+            } catch (GeneralSecurityException e) {
+               throw new RuntimeException(e);
+            }
+         });
+      }
+      ThreadTester.testInThread(signers);
+      Assertions.assertTrue(pool.size() >= 2);
+      Assertions.assertTrue(pool.size() <= pool.getMaxIdle());
+
+      SignaturePool bounded = new SignaturePool(ks, "1", "password".toCharArray(), "SHA256withRSA", 1, 2);
+      List<Signature> borrowed = new ArrayList<>(4);
+      for (int i = 0; i < 4; i++) {
+         borrowed.add(bounded.borrow());
+      }
+      Assertions.assertEquals(0, bounded.size());
+      borrowed.forEach(bounded::release);
+      Assertions.assertEquals(2, bounded.size());
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> new SignaturePool(ks, "1", "password".toCharArray(), "SHA256withRSA", 1, 0));
+   }
+
+   @Test
+   public void testSignaturePoolScaling() throws Throwable {
+      KeyStore ks = CertificateHelper.loadKeyStore(Path.of("src/test/resources/eduarddrenth-TECRA-S11.pfx"),
+          "pkcs12", "password".toCharArray());
+      SignaturePool pool = new SignaturePool(ks, "1", "password".toCharArray(), "SHA256withRSA", 1, 4);
+      byte[] data = "document".getBytes(StandardCharsets.UTF_8);
+      ThreadTester.ScalingResult result = ThreadTester.measureScaling(() -> {
+         try {
+            pool.sign(data);
+         } catch (SignatureException e) {
+            throw new RuntimeException(e);
+         }
+      }, 4, 50);
+      System.out.println(result);
+      Assertions.assertEquals(4, result.measurements().size());
+      for (ThreadTester.Measurement m : result.measurements()) {
+         Assertions.assertEquals(m.threads() * 50L, m.ops());
+      }
+      Assertions.assertTrue(pool.size() >= 1 && pool.size() <= 4);
+   }
+
+   @Test
+   public void testCache() throws Exception {
+      CertificateCache cache = new CertificateCache(Duration.ofMinutes(1));
+      String pfx = "src/test/resources/eduarddrenth-TECRA-S11.pfx";
+      char[] password = "password".toCharArray();
+      KeyStore ks = loadKeyStore(cache, pfx, password);
+      Assertions.assertArrayEquals(new char[8], password);
+      Assertions.assertSame(ks, loadKeyStore(cache, pfx, "password".toCharArray()));
+      PrivateKey key = cache.getKey(pfx, ks, "1", "password".toCharArray());
+      Assertions.assertSame(key, cache.getKey(pfx, ks, "1", "password".toCharArray()));
+      Assertions.assertThrows(UnrecoverableKeyException.class, () -> cache.getKey(pfx, ks, "1", "wrong".toCharArray()));
+      Assertions.assertThrows(IOException.class, () -> loadKeyStore(cache, pfx, "wrong".toCharArray()));
+
+      String crt = "src/test/resources/eduarddrenth-TECRA-S11.crt";
+      Certificate cert = loadCertificate(cache, crt);
+      Assertions.assertSame(cert, loadCertificate(cache, crt));
+      Assertions.assertEquals(3, cache.size());
+      cache.evict(crt);
+      Assertions.assertEquals(2, cache.size());
+      Assertions.assertEquals(cert, loadCertificate(cache, crt));
+      Assertions.assertEquals(3, cache.size());
+      cache.clear();
+      Assertions.assertNotSame(ks, loadKeyStore(cache, pfx, "password".toCharArray()));
+
+      CertificateCache small = new CertificateCache(null, 1);
+      loadCertificate(small, crt);
+      loadKeyStore(small, pfx, "password".toCharArray());
+      Assertions.assertEquals(1, small.size());
+   }
+
+   @Test
+   public void testCacheConcurrent() throws Throwable {
+      CertificateCache cache = new CertificateCache();
+      String pfx = "src/test/resources/eduarddrenth-TECRA-S11.pfx";
+      Set<KeyStore> loaded = ConcurrentHashMap.newKeySet();
+      List<Runnable> loaders = new ArrayList<>(8);
+      for (int i = 0; i < 8; i++) {
+         loaders.add(() -> {
+            try {
+               loaded.add(loadKeyStore(cache, pfx, "password".toCharArray()));
+            } catch (Exception e) {
+               throw new RuntimeException(e);
+            }
+         });
+      }
+      ThreadTester.testInThread(loaders);
+      // the keystore is loaded once
+      Assertions.assertEquals(1, loaded.size());
+   }
+
+   private static KeyStore loadKeyStore(CertificateCache cache, String pfx, char[] password) throws Exception {
+      try (InputStream in = new FileInputStream(pfx)) {
+         return cache.loadKeyStore(pfx, in, "pkcs12", password);
+      }
+   }
+
+   private static Certificate loadCertificate(CertificateCache cache, String crt) throws Exception {
+      try (InputStream in = new FileInputStream(crt)) {
+         return cache.loadCertificate(crt, in);
+      }
+   }
 }
@@ -23,16 +23,50 @@ package com.vectorprint;
  */
 
 
+import com.vectorprint.certificates.CertificateHelper;
 import com.vectorprint.testing.ThreadTester;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.ParameterizedType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
 
 /**
  *
@@ -56,12 +90,248 @@ public class CommonTest {
       Assertions.assertTrue(c.contains(VersionInfo.class));
    }
    
+   @Test
+   public void testClassIndex() throws IOException {
+      try (InputStream in = ClassHelper.class.getResourceAsStream("ClassHierarchyIndex.class")) {
+         ClassFileInfo info = ClassFileInfo.read(in);
+         Assertions.assertEquals(ClassHierarchyIndex.class.getName(), info.name());
+         Assertions.assertEquals("java.lang.Object", info.superName());
+         Assertions.assertEquals("com.vectorprint", info.packageName());
+      }
+      try (InputStream in = ClassHelper.class.getResourceAsStream("StringConverter.class")) {
+         ClassFileInfo info = ClassFileInfo.read(in);
+         Assertions.assertTrue(info.isInterface());
+         Assertions.assertTrue(info.isAbstract());
+      }
+      Assertions.assertThrows(IOException.class, () -> ClassFileInfo.read(new byte[]{1, 2, 3, 4}));
+
+      ClassHierarchyIndex index = ClassHelper.getClassIndex(Thread.currentThread().getContextClassLoader(),
+          ClassHelper.class.getPackageName());
+      Set<String> converters = index.getImplementations(StringConverter.class, "com.vectorprint", false);
+      Assertions.assertTrue(converters.contains(CachingConverter.class.getName()));
+      Assertions.assertTrue(converters.contains(StringConverter.IntParser.class.getName()));
+      Assertions.assertFalse(converters.contains(StringConverter.class.getName()));
+      Assertions.assertFalse(converters.contains(ConverterCache.class.getName()));
+      Assertions.assertTrue(index.getSubtypes(Exception.class).contains(VectorPrintException.class.getName()));
+      Assertions.assertTrue(index.getClassNames().contains(CommonTest.class.getName()));
+      for (Class<?> c : ClassHierarchyIndex.load(converters, getClass().getClassLoader())) {
+         Assertions.assertTrue(StringConverter.class.isAssignableFrom(c));
+      }
+
+      ClassHierarchyIndex jar = new ClassHierarchyIndex();
+      ClassHelper.readFromJARFile("src/test/resources/VectorPrintCommon-2.0.jar", ClassHelper.class.getPackageName(), jar::add);
+      Assertions.assertNotNull(jar.get(VersionInfo.class.getName()));
+      Assertions.assertTrue(jar.getClassNames().stream().allMatch(n -> n.startsWith("com.vectorprint.") && n.indexOf('.', 16) < 0));
+   }
+
+   @Test
+   public void testScanSubPackages() throws IOException {
+      ClassLoader loader = Thread.currentThread().getContextClassLoader();
+      Set<Class<?>> classes = ClassHelper.getClasses(loader, "com.vectorprint", true);
+      Assertions.assertTrue(classes.contains(ClassHelper.class));
+      Assertions.assertTrue(classes.contains(CertificateHelper.class));
+      Assertions.assertTrue(classes.contains(ThreadTester.class));
+      Assertions.assertFalse(ClassHelper.getClasses(loader, "com.vectorprint").contains(CertificateHelper.class));
+      Assertions.assertEquals(classes.size(), ClassHelper.getClassIndex(loader, "com.vectorprint", true).size());
+
+      // a jar in a directory with a space, read through zipfs
+      Path dir = Files.createTempDirectory("with space");
+      Path jar = Files.copy(Path.of("src/test/resources/VectorPrintCommon-2.0.jar"), dir.resolve("common.jar"));
+      try (URLClassLoader jarLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+         ClassHierarchyIndex index = ClassHelper.getClassIndex(jarLoader, "com.vectorprint", true);
+         Assertions.assertNotNull(index.get(VersionInfo.class.getName()));
+         Assertions.assertTrue(index.size() > ClassHelper.getClassIndex(jarLoader, "com.vectorprint").size());
+         Assertions.assertEquals(index.size(), ClassHelper.getClasses(jarLoader, "com.vectorprint", true).size());
+      } finally {
+         Files.delete(jar);
+         Files.delete(dir);
+      }
+   }
+
+   @Test
+   public void testClassWatcher() throws Exception {
+      byte[] classFile;
+      try (InputStream in = getClass().getResourceAsStream("CommonTest$Marked.class")) {
+         classFile = in.readAllBytes();
+      }
+      Path root = Files.createTempDirectory("watch");
+      Path plugins = Files.createDirectories(root.resolve("plugins"));
+      Files.write(plugins.resolve("A.class"), classFile);
+      Path jar = root.resolve("plugins.jar");
+      writeJar(jar, "plugins/B.class", classFile);
+      try (URLClassLoader loader = new URLClassLoader(new URL[]{root.toUri().toURL(), jar.toUri().toURL()}, null);
+          ClassWatcher watcher = new ClassWatcher(loader, "plugins", true)) {
+         Assertions.assertEquals(Set.of("plugins.A", "plugins.B"), watcher.getClassNames());
+         Assertions.assertEquals(Marked.class.getName(), watcher.getClasses().get("plugins.A").name());
+         List<ClassWatcher.ClassEvent> received = new ArrayList<>();
+         watcher.addListener(received::add);
+         Assertions.assertEquals(List.of(), watcher.refresh());
+
+         Files.write(plugins.resolve("C.class"), classFile);
+         Files.delete(plugins.resolve("A.class"));
+         Files.write(Files.createDirectory(plugins.resolve("sub")).resolve("D.class"), classFile);
+         writeJar(jar, "plugins/E.class", classFile);
+         Set<String> expected = Set.of("plugins.C", "plugins.sub.D", "plugins.E");
+         awaitClasses(watcher, expected);
+         Assertions.assertTrue(received.contains(new ClassWatcher.ClassEvent(ClassWatcher.ClassEvent.Kind.REMOVED, "plugins.A", null)));
+         Assertions.assertTrue(received.contains(new ClassWatcher.ClassEvent(ClassWatcher.ClassEvent.Kind.REMOVED, "plugins.B", null)));
+         Assertions.assertTrue(received.stream().anyMatch(e -> e.kind() == ClassWatcher.ClassEvent.Kind.ADDED && e.name().equals("plugins.sub.D")));
+
+         // redeploy as delete and copy
+         Files.delete(jar);
+         watcher.refresh();
+         Assertions.assertFalse(watcher.getClassNames().contains("plugins.E"));
+         writeJar(jar, "plugins/E.class", classFile);
+         awaitClasses(watcher, expected);
+
+         // an unreadable jar does not keep directory changes from the listeners
+         received.clear();
+         Files.write(jar, new byte[]{1, 2, 3});
+         Files.write(plugins.resolve("F.class"), classFile);
+         for (int i = 0; i < 100 && received.stream().noneMatch(e -> e.name().equals("plugins.F")); i++) {
+            Thread.sleep(100);
+            watcher.refresh();
+         }
+         Assertions.assertEquals(List.of(new ClassWatcher.ClassEvent(ClassWatcher.ClassEvent.Kind.ADDED, "plugins.F", watcher.getClasses().get("plugins.F"))),
+             received.stream().filter(e -> e.name().equals("plugins.F")).toList());
+      } finally {
+         try (Stream<Path> files = Files.walk(root)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+               Files.delete(p);
+            }
+         }
+      }
+   }
+
+   private static void awaitClasses(ClassWatcher watcher, Set<String> expected) throws Exception {
+      // the watch service reports asynchronously
+      for (int i = 0; i < 100 && !watcher.getClassNames().equals(expected); i++) {
+         Thread.sleep(100);
+         List<ClassWatcher.ClassEvent> events = watcher.refresh();
+         Assertions.assertEquals(events.size(), events.stream().map(ClassWatcher.ClassEvent::name).distinct().count(), events.toString());
+      }
+      Assertions.assertEquals(expected, watcher.getClassNames());
+   }
+
+   private static void writeJar(Path jar, String entry, byte[] content) throws IOException {
+      try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+         // class loaders only find packages with a directory entry
+         out.putNextEntry(new JarEntry(entry.substring(0, entry.lastIndexOf('/') + 1)));
+         out.closeEntry();
+         out.putNextEntry(new JarEntry(entry));
+         out.write(content);
+         out.closeEntry();
+      }
+   }
+
+   @Test
+   public void testAnnotationScan() throws IOException {
+      try (InputStream in = ClassHelper.class.getResourceAsStream("CommonTest$Annotated.class")) {
+         ClassFileInfo info = ClassFileInfo.read(in);
+         Assertions.assertEquals(List.of(Marker.class.getName(), Build.class.getName()), info.annotations());
+         Assertions.assertTrue(info.hasAnnotation(Build.class));
+      }
+      Assertions.assertEquals(Set.of(Annotated.class), ClassHelper.getAnnotatedClasses(
+          Thread.currentThread().getContextClassLoader(), ClassHelper.class.getPackageName(), Build.class));
+      Assertions.assertEquals(Set.of(Annotated.class.getName(), Marked.class.getName()), ClassHelper.getClassIndex(
+          Thread.currentThread().getContextClassLoader(), ClassHelper.class.getPackageName()).getAnnotated(Marker.class));
+   }
+
+   @Retention(RetentionPolicy.RUNTIME)
+   public @interface Marker {
+
+      String value() default "";
+
+      int[] numbers() default {};
+
+      TimeUnit unit() default TimeUnit.SECONDS;
+
+      Build[] nested() default {};
+
+      Class<?> type() default Object.class;
+   }
+
+   @Retention(RetentionPolicy.CLASS)
+   public @interface Build {
+   }
+
+   @Marker(value = "x", numbers = {1, 2}, unit = TimeUnit.DAYS, nested = @Build, type = String.class)
+   @Build
+   private static class Annotated {
+   }
+
+   @Marker
+   private static class Marked {
+   }
+
    @Test
    public void testVersionInfo() throws IOException {
       Map<String, VersionInfo.VersionInformation> info = VersionInfo.getVersionInfo();
       Assertions.assertTrue(info.size() > 0);
       VersionInfo.printVersionInfo();
       VersionInfo.main(null);
+      String json = VersionInfo.toJson(info.values());
+      Assertions.assertTrue(json.startsWith("[{\"groupId\":"));
+      Assertions.assertTrue(VersionInfo.toCycloneDx(info.values()).contains("\"purl\":\"pkg:maven/"));
+   }
+
+   @Test
+   public void testVersionInfoDiff() throws IOException {
+      String[] jars = {"src/test/resources/VectorPrintCommon-2.0.jar"};
+      Path inventory = Files.createTempFile("inventory", ".properties");
+      Files.delete(inventory);
+      try {
+         VersionInfo.VersionDiff diff = VersionInfo.getVersionInfoDiff(jars, inventory);
+         Assertions.assertEquals(1, diff.added.size());
+         Assertions.assertEquals("2.0", diff.added.get(jars[0]).version);
+         diff = VersionInfo.getVersionInfoDiff(jars, inventory);
+         Assertions.assertTrue(diff.isEmpty());
+         diff = VersionInfo.getVersionInfoDiff(new String[0], inventory);
+         Assertions.assertEquals(1, diff.removed.size());
+         Assertions.assertTrue(diff.toJson().startsWith("{\"added\":{},\"removed\":{"));
+
+         // fields holding the separator
+         Path jar = Files.createTempFile("pipe", ".jar");
+         try {
+            writeJar(jar, "META-INF/maven/g/a/pom.properties", "groupId=g|h\\\nartifactId=a\nversion=1|2\n".getBytes(StandardCharsets.UTF_8));
+            String[] pipe = {jar.toString()};
+            Assertions.assertEquals("1|2", VersionInfo.getVersionInfoDiff(pipe, inventory).added.get(pipe[0]).version);
+            Assertions.assertTrue(VersionInfo.getVersionInfoDiff(pipe, inventory).isEmpty());
+
+            // a corrupt inventory is treated as missing
+            Files.writeString(inventory, pipe[0].replace("\\", "\\\\").replace(":", "\\:") + "=x|1|g|a|1|2\n");
+            Assertions.assertEquals(1, VersionInfo.getVersionInfoDiff(pipe, inventory).added.size());
+         } finally {
+            Files.delete(jar);
+         }
+
+         // jars without version information are recorded, but not reported
+         Path plain = Files.createTempFile("plain", ".jar");
+         try {
+            writeJar(plain, "a/b.txt", new byte[1]);
+            String[] noVersion = {plain.toString()};
+            Files.delete(inventory);
+            Assertions.assertTrue(VersionInfo.getVersionInfoDiff(noVersion, inventory).isEmpty());
+            Properties recorded = new Properties();
+            try (Reader r = Files.newBufferedReader(inventory)) {
+               recorded.load(r);
+            }
+            Assertions.assertEquals(plain.toFile().lastModified() + "|" + Files.size(plain), recorded.getProperty(noVersion[0]));
+            Assertions.assertTrue(VersionInfo.getVersionInfoDiff(noVersion, inventory).isEmpty());
+         } finally {
+            Files.delete(plain);
+         }
+
+         VersionInfo.VersionInformation partial = new VersionInfo.VersionInformation(null, "g", null, "today", 1);
+         Assertions.assertEquals("{\"groupId\":\"g\",\"artifactId\":null,\"version\":null,\"buildDate\":\"today\",\"size\":1}",
+             partial.toJson());
+         Assertions.assertFalse(VersionInfo.toCycloneDx(List.of(partial)).contains("purl"));
+         VersionInfo.main(new String[]{"-inventory"});
+         Assertions.assertThrows(IllegalArgumentException.class,
+             () -> VersionInfo.main(new String[]{"-cyclonedx", "-inventory", inventory.toString()}));
+      } finally {
+         Files.deleteIfExists(inventory);
+      }
    }
    
    @Test
@@ -72,6 +342,111 @@ public class CommonTest {
        Assertions.assertEquals(Character[].class, ArrayHelper.wrap(new char[] {1,2}).getClass());
        Assertions.assertEquals(Double[].class, ArrayHelper.wrap(new double[] {1,2}).getClass());
    }
+
+   @Test
+   public void testArrayMath() {
+      // lengths around the vector width to cover the tail loops
+      for (int len : new int[]{0, 1, 3, 7, 8, 15, 16, 17, 63, 64, 65, 1000}) {
+         float[] values = new float[len];
+         for (int i = 0; i < len; i++) {
+            values[i] = (i * 37 % 101) - 50.5f;
+         }
+         float[] expected = values.clone();
+         ArrayMath.scaleAndTranslateScalar(expected, 1.5f, -3);
+         float[] actual = values.clone();
+         ArrayMath.scaleAndTranslate(actual, 1.5f, -3);
+         Assertions.assertArrayEquals(expected, actual);
+         ArrayMath.scaleScalar(expected, 2);
+         ArrayMath.scale(actual, 2);
+         ArrayMath.translateScalar(expected, 0.25f);
+         ArrayMath.translate(actual, 0.25f);
+         Assertions.assertArrayEquals(expected, actual);
+         Assertions.assertEquals(ArrayMath.minScalar(values), ArrayMath.min(values));
+         Assertions.assertEquals(ArrayMath.maxScalar(values), ArrayMath.max(values));
+         // integral values, summation order does not matter
+         Assertions.assertEquals(ArrayMath.sumScalar(values), ArrayMath.sum(values), 0.001f);
+      }
+      Assertions.assertTrue(Float.isNaN(ArrayMath.max(new float[]{1, Float.NaN, 2})));
+      Assertions.assertEquals(Float.POSITIVE_INFINITY, ArrayMath.min(new float[0]));
+      ArrayMath.scale(null, 2);
+   }
+
+   @Test
+   public void testOffHeapArrayHelper() {
+      float[] coords = {1.5f, -2, 3, 4.25f};
+      FloatBuffer fb = OffHeapArrayHelper.toOffHeap(coords);
+      Assertions.assertTrue(fb.isDirect());
+      Assertions.assertArrayEquals(coords, OffHeapArrayHelper.toArray(fb));
+      Assertions.assertThrows(ReadOnlyBufferException.class, () -> fb.asReadOnlyBuffer().put(0, 1));
+      OffHeapArrayHelper.clear(fb);
+      Assertions.assertArrayEquals(new float[4], OffHeapArrayHelper.toArray(fb));
+
+      ByteBuffer bb = OffHeapArrayHelper.allocate(10000);
+      bb.put(9999, (byte) 1).limit(5);
+      OffHeapArrayHelper.clear(bb);
+      Assertions.assertEquals(0, bb.limit(10000).get(9999));
+      Assertions.assertArrayEquals(new int[]{1, 2}, OffHeapArrayHelper.toArray(OffHeapArrayHelper.toOffHeap(new int[]{1, 2})));
+      Assertions.assertNull(OffHeapArrayHelper.toOffHeap((char[]) null));
+      CharBuffer cb = OffHeapArrayHelper.allocateChars(5000);
+      cb.put(4990, "secret".toCharArray());
+      OffHeapArrayHelper.clear(cb.limit(1));
+      Assertions.assertArrayEquals(new char[6], Arrays.copyOfRange(OffHeapArrayHelper.toArray(cb.limit(5000)), 4990, 4996));
+      DoubleBuffer db = OffHeapArrayHelper.toOffHeap(new double[]{1, 2, 3});
+      OffHeapArrayHelper.clear(db);
+      Assertions.assertArrayEquals(new double[3], OffHeapArrayHelper.toArray(db));
+      IntBuffer ib = OffHeapArrayHelper.allocateInts(3000);
+      ib.put(2999, 7);
+      OffHeapArrayHelper.clear(ib);
+      Assertions.assertEquals(0, ib.get(2999));
+   }
+
+   @Test
+   public void testSecureBufferPool() {
+      SecureBufferPool pool = new SecureBufferPool(1024, 2, false, true);
+      char[] pw = pool.acquireChars(10);
+      Assertions.assertEquals(16, pw.length);
+      "secret".getChars(0, 6, pw, 0);
+      pool.release(pw);
+      Assertions.assertArrayEquals(new char[16], pw);
+      Assertions.assertSame(pw, pool.acquireChars(12));
+      Assertions.assertThrows(IllegalStateException.class, pool::checkLeaks);
+      pool.release(pw);
+      Assertions.assertThrows(IllegalStateException.class, () -> pool.release(pw));
+      Assertions.assertThrows(IllegalStateException.class, () -> pool.release(new byte[16]));
+
+      ByteBuffer bb = pool.acquireBuffer(100);
+      Assertions.assertEquals(128, bb.capacity());
+      Assertions.assertEquals(100, bb.limit());
+      bb.put(99, (byte) 7);
+      pool.release(bb);
+      Assertions.assertEquals(0, bb.get(99));
+
+      byte[] large = pool.acquireBytes(2000);
+      Assertions.assertEquals(2000, large.length);
+      large[1999] = 1;
+      pool.release(large);
+      Assertions.assertEquals(0, large[1999]);
+      Assertions.assertNotSame(large, pool.acquireBytes(2000));
+      Assertions.assertEquals(1, pool.outstanding());
+
+      // without leak detection a second release is ignored
+      SecureBufferPool untracked = new SecureBufferPool(1024, 2, false, false);
+      byte[] b = untracked.acquireBytes(16);
+      untracked.release(b);
+      untracked.release(b);
+      Assertions.assertSame(b, untracked.acquireBytes(16));
+      Assertions.assertNotSame(b, untracked.acquireBytes(16));
+      // a second release while the first one is in the shared queue
+      byte[] inSlot = untracked.acquireBytes(16);
+      byte[] queued = untracked.acquireBytes(16);
+      untracked.release(inSlot);
+      untracked.release(queued);
+      untracked.release(queued);
+      Assertions.assertSame(inSlot, untracked.acquireBytes(16));
+      Assertions.assertSame(queued, untracked.acquireBytes(16));
+      Assertions.assertNotSame(queued, untracked.acquireBytes(16));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> new SecureBufferPool((1 << 30) + 1, 2, false, false));
+   }
    
    @Test
    public void testRunInThread() throws Throwable {
@@ -96,6 +471,145 @@ public class CommonTest {
       }
    }
    
+   @Test
+   public void testRunInVirtualThreads() throws Throwable {
+      Collection<Runnable> toRun = new ArrayList<>(100_000);
+      for (int i = 0; i < 100_000; i++) {
+         String val = String.valueOf(i);
+         int expected = i;
+         toRun.add(() -> Assertions.assertEquals(expected, (int) StringConverter.INT_PARSER.convert(val)));
+      }
+      ThreadTester.testInVirtualThreads(toRun);
+
+      List<Runnable> failing = List.of(() -> {
+         throw new IllegalStateException("forced exception");
+      }, () -> {
+         try {
+            Thread.sleep(60_000);
+         } catch (InterruptedException ex) {
+            // expected
+         }
+      });
+      long start = System.nanoTime();
+      // closing the executor waits for the sleeping task, unless it was cancelled
+      Assertions.assertThrows(IllegalStateException.class, () -> ThreadTester.testInVirtualThreads(failing));
+      Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+      ExecutorService executor = Executors.newFixedThreadPool(2);
+      try {
+         Assertions.assertThrows(IllegalStateException.class, () -> ThreadTester.testInThread(failing, executor));
+
+         // returns after the interrupted task finished
+         AtomicBoolean stopped = new AtomicBoolean();
+         CountDownLatch sleeping = new CountDownLatch(1);
+         List<Runnable> slowStop = List.of(() -> {
+            try {
+               sleeping.await();
+            } catch (InterruptedException ex) {
+               // fail anyway
+            }
+            throw new IllegalStateException("forced exception");
+         }, () -> {
+            sleeping.countDown();
+            try {
+               Thread.sleep(60_000);
+            } catch (InterruptedException ex) {
+               try {
+                  Thread.sleep(100);
+               } catch (InterruptedException ex1) {
+                  // ignore
+               }
+               stopped.set(true);
+            }
+         });
+         Assertions.assertThrows(IllegalStateException.class, () -> ThreadTester.testInThread(slowStop, executor));
+         Assertions.assertTrue(stopped.get());
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testStress() throws Throwable {
+      CachingConverter<Integer> cached = new CachingConverter<>(StringConverter.INT_PARSER, 100);
+      Collection<Runnable> toRun = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+         toRun.add(() -> {
+            for (int i = 0; i < 1000; i++) {
+               Assertions.assertEquals(i % 50, (int) cached.convert(String.valueOf(i % 50)));
+            }
+         });
+      }
+      ThreadTester.StressResult result = ThreadTester.stress(toRun, 5, true);
+      Assertions.assertEquals(5, result.iterations().size());
+      Assertions.assertEquals(8, result.iterations().get(0).tasks());
+      Assertions.assertTrue(result.meanThroughput() > 0);
+      Assertions.assertEquals(6, result.toString().lines().count());
+      Assertions.assertEquals(40_000, cached.stats().hits() + cached.stats().misses());
+
+      toRun.add(() -> {
+         throw new IllegalStateException("forced exception");
+      });
+      Assertions.assertThrows(IllegalStateException.class, () -> ThreadTester.stress(toRun, 2, false));
+   }
+
+   @Test
+   public void testMeasureScaling() throws Throwable {
+      ThreadTester.ScalingResult result = ThreadTester.measureScaling(() -> StringConverter.DOUBLE_PARSER.convert("3.14"), 3, 1000);
+      Assertions.assertEquals(3, result.measurements().size());
+      for (ThreadTester.Measurement m : result.measurements()) {
+         Assertions.assertEquals(m.threads() * 1000L, m.ops());
+         Assertions.assertTrue(m.p50() <= m.p90() && m.p90() <= m.p99() && m.p99() <= m.max());
+      }
+      Assertions.assertEquals(4, result.toCsv().lines().count());
+      Assertions.assertTrue(result.toCsv().startsWith("threads,ops,"));
+      Assertions.assertEquals(4, result.toString().lines().count());
+
+      result = ThreadTester.measureScaling(() -> StringConverter.DOUBLE_PARSER.convert("3.14"), 2, Duration.ofMillis(50));
+      Assertions.assertTrue(result.measurements().get(1).ops() > 0);
+      Assertions.assertThrows(IllegalStateException.class, () -> ThreadTester.measureScaling(() -> {
+         throw new IllegalStateException("forced exception");
+      }, 2, 10));
+   }
+
+   @Test
+   public void testHangDetection() throws Throwable {
+      ThreadTester.testInThread(List.of(new MyRun(), new MyRun()), Duration.ofSeconds(30));
+
+      AssertionFailedError timeout = Assertions.assertThrows(AssertionFailedError.class, () -> ThreadTester.testInThread(() -> {
+         try {
+            Thread.sleep(60_000);
+         } catch (InterruptedException ex) {
+            // expected
+         }
+      }, Duration.ofMillis(200)));
+      Assertions.assertTrue(timeout.getMessage().contains("Thread.sleep"), timeout.getMessage());
+
+      ReentrantLock a = new ReentrantLock();
+      ReentrantLock b = new ReentrantLock();
+      CountDownLatch locked = new CountDownLatch(2);
+      long start = System.nanoTime();
+      AssertionFailedError deadlock = Assertions.assertThrows(AssertionFailedError.class, () -> ThreadTester.testInThread(List.of(
+          () -> lockBoth(a, b, locked), () -> lockBoth(b, a, locked)), Duration.ofSeconds(60)));
+      Assertions.assertTrue(deadlock.getMessage().startsWith("deadlock"), deadlock.getMessage());
+      Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+   }
+
+   private static void lockBoth(ReentrantLock first, ReentrantLock second, CountDownLatch locked) {
+      try {
+         first.lockInterruptibly();
+         try {
+            locked.countDown();
+            locked.await();
+            second.lockInterruptibly();
+            second.unlock();
+         } finally {
+            first.unlock();
+         }
+      } catch (InterruptedException ex) {
+         // released by ThreadTester
+      }
+   }
+
    private static class MyRun implements Runnable {
          private Map<String, VersionInfo.VersionInformation> info;
          private RuntimeException re;
@@ -160,6 +674,78 @@ public class CommonTest {
             
    }
    
+   @Test
+   public void testResolvedType() throws NoSuchFieldException {
+      ResolvedType lookup = ResolvedType.of(Lookup.class);
+      Assertions.assertSame(lookup, ResolvedType.of(Lookup.class));
+      ResolvedType map = lookup.getSuperType(Map.class);
+      Assertions.assertEquals("java.util.Map<java.lang.String, java.util.List<java.lang.Integer>>", map.toString());
+      Assertions.assertEquals(ResolvedType.Kind.PARAMETERIZED, map.getKind());
+      ResolvedType list = map.getTypeArguments().get(1);
+      Assertions.assertEquals(List.class, list.getRawClass());
+      Assertions.assertEquals(Integer.class, list.getTypeArguments().get(0).getRawClass());
+      Assertions.assertEquals(map.getTypeArguments(), ClassHelper.findParameterTypes(Lookup.class, Map.class));
+      Assertions.assertNull(lookup.getSuperType(Iterable.class));
+
+      ResolvedType field = ResolvedType.of(Lookup.class.getDeclaredField("bounded").getGenericType());
+      Assertions.assertEquals("java.util.Map<? extends java.lang.Number, ? super java.lang.Integer>[]", field.toString());
+      ResolvedType wildcard = field.getComponentType().getTypeArguments().get(0);
+      Assertions.assertEquals(ResolvedType.Kind.WILDCARD, wildcard.getKind());
+      Assertions.assertEquals(Number.class, wildcard.getRawClass());
+      Assertions.assertEquals(Map[].class, field.getRawClass());
+
+      // unbound variables keep their erasure
+      ResolvedType comparable = ResolvedType.of(Lookup.class.getDeclaredField("variable").getGenericType());
+      Assertions.assertEquals(ResolvedType.Kind.VARIABLE, comparable.getKind());
+      Assertions.assertEquals(Comparable.class, comparable.getRawClass());
+      Assertions.assertEquals(String.class, ResolvedType.of(String.class).getTypeArgumentsOf(Comparable.class).get(0).getRawClass());
+      Assertions.assertEquals(ClassHelper.findParameterClasses(Level3Sub.class, GenericInterface.class),
+          ClassHelper.findParameterTypes(Level3Sub.class, GenericInterface.class).stream()
+              .map(ResolvedType::getRawClass).toList());
+   }
+
+   private static class Lookup<C extends Comparable<C>> extends HashMap<String, List<Integer>> {
+
+      private Map<? extends Number, ? super Integer>[] bounded;
+      private C variable;
+   }
+
+   @Test
+   public void testConstructorFactories() {
+      Supplier<StringBuilder> sb = ClassHelper.supplier(StringBuilder.class);
+      Assertions.assertSame(sb, ClassHelper.supplier(StringBuilder.class));
+      Assertions.assertNotSame(sb.get(), sb.get());
+      // private class, MethodHandle instead of LambdaMetafactory
+      Assertions.assertEquals(DirectSub.class, ClassHelper.supplier(DirectSub.class).get().getClass());
+      Assertions.assertThrows(IllegalArgumentException.class, () -> ClassHelper.supplier(Integer.class));
+
+      Assertions.assertEquals("abc", ClassHelper.instantiator(StringBuilder.class, String.class).apply(new Object[]{"abc"}).toString());
+      Assertions.assertEquals(10, ClassHelper.instantiator(StringBuilder.class, int.class).apply(new Object[]{10}).capacity());
+      Assertions.assertSame(ClassHelper.findConstructorHandle(StringBuilder.class, int.class), ClassHelper.findConstructorHandle(StringBuilder.class, int.class));
+      Assertions.assertNull(ClassHelper.findConstructorHandle(StringBuilder.class, Map.class));
+      Assertions.assertThrows(VectorPrintRuntimeException.class, () -> ClassHelper.supplier(Failing.class).get());
+   }
+
+   @Test
+   public void testSupplierOtherLoader() throws Exception {
+      URL location = CommonTest.class.getProtectionDomain().getCodeSource().getLocation();
+      try (URLClassLoader loader = new URLClassLoader(new URL[]{location}, null)) {
+         Class<?> plugin = loader.loadClass(Plugin.class.getName());
+         Assertions.assertNotSame(Plugin.class, plugin);
+         Assertions.assertEquals(plugin, ClassHelper.supplier(plugin).get().getClass());
+      }
+   }
+
+   public static class Plugin {
+   }
+
+   public static class Failing {
+
+      public Failing() throws IOException {
+         throw new IOException("forced exception");
+      }
+   }
+
    private static class DirectSub<P1,P2> implements GenericInterface<P1, P2, Integer> {
       
    }
@@ -84,4 +84,24 @@ public class ExceptionTest {
       }
 
    }
+
+   @Test
+   public void testStackless() {
+      VectorPrintRuntimeException vpr = VectorPrintRuntimeException.stackless("invalid");
+      Assertions.assertEquals(0, vpr.getStackTrace().length);
+      vpr.addSuppressed(new Exception());
+      Assertions.assertEquals(0, vpr.getSuppressed().length);
+      Assertions.assertEquals("invalid", vpr.getMessage());
+
+      Exception cause = new Exception();
+      VectorPrintException vpe = VectorPrintException.stackless("invalid", cause);
+      Assertions.assertEquals(0, vpe.getStackTrace().length);
+      Assertions.assertSame(cause, vpe.getCause());
+
+      VectorPrintRuntimeException invalid = VectorPrintRuntimeException.INVALID;
+      Assertions.assertEquals(0, invalid.getStackTrace().length);
+      Assertions.assertThrows(IllegalStateException.class, () -> invalid.initCause(cause));
+      Assertions.assertNull(invalid.getCause());
+      Assertions.assertEquals(0, VectorPrintException.INVALID.getStackTrace().length);
+   }
 }
@@ -24,9 +24,22 @@ package com.vectorprint;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.awt.Color;
+import java.lang.reflect.Type;
 import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
 
 public class StringConverterTest {
 
@@ -41,4 +54,242 @@ public class StringConverterTest {
         } catch (IllegalArgumentException e) {
         }
     }
+
+    private static void differential(StringConverter<?> converter, String... values) {
+        for (String val : values) {
+            Object expected;
+            try {
+                expected = converter.convert(val);
+            } catch (RuntimeException ex) {
+                expected = ex;
+            }
+            StringConverter.Result<?> result = converter.tryConvert(val);
+            if (expected instanceof RuntimeException) {
+                Assertions.assertFalse(result.isSuccess(), converter.getClass().getSimpleName() + " should fail for " + val);
+                Assertions.assertNotNull(result.error());
+            } else {
+                Assertions.assertTrue(result.isSuccess(), converter.getClass().getSimpleName() + " should succeed for " + val);
+                if (expected instanceof Pattern pattern) {
+                    // Pattern does not implement equals
+                    Assertions.assertEquals(pattern.pattern(), ((Pattern) result.value()).pattern());
+                } else {
+                    Assertions.assertEquals(expected, result.value());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTryConvert() {
+        String[] integers = {"0", "-0", "+1", "-", "+", "", "12a", "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "32767", "32768", "-32768", "9223372036854775807", "9223372036854775808", "-9223372036854775808", " 1", "\u0661"};
+        differential(StringConverter.INT_PARSER, integers);
+        differential(StringConverter.LONG_PARSER, integers);
+        differential(StringConverter.SHORT_PARSER, integers);
+        differential(StringConverter.BIG_INTEGER_PARSER, integers);
+        differential(StringConverter.BYTE_PARSER, "127", "128", "-128", "-129", "0x7f", "0x80", "-0x80", "#10", "010", "09",
+            "0", "-", "0x", "0x-1", "--1", "+0x1", "");
+        String[] decimals = {"1", "12.5", "0.75", ".5", "5.", ".", "-1e10", "1e", "1e+", "1E-5", "1.5f", "2d", "1x", "NaN",
+            "-Infinity", "Infinity1", " 1.5 ", "0x1p3", "0x1.8P-1", "0x1", "0x.p1", "", "e5", "+.5e-3", "1e2147483648",
+            "1.0e-2147483648"};
+        differential(StringConverter.DOUBLE_PARSER, decimals);
+        differential(StringConverter.FLOAT_PARSER, decimals);
+        differential(StringConverter.BIG_DECIMAL_PARSER, decimals);
+        differential(StringConverter.COLOR_PARSER, "red", "RED", "Red", "nocolor", "#fff", "#ff0000", "#7fffffff",
+            "#ffffffff", "#", "#-1", "#zz", "");
+        differential(StringConverter.CHAR_PARSER, "a", "ab", "");
+        differential(StringConverter.CLASS_PARSER, "java.lang.String", "com.vectorprint.StringConverter",
+            "com.vectorprint.StringConverter$Result", "[I", "[Ljava.lang.String;", "no.such.Clazz", "java/lang/String", "");
+        differential(StringConverter.URL_PARSER, "http://vectorprint.nl", "file:src", "src", "nosuchfile", "c:nosuchfile",
+            "unknown:thing");
+        differential(StringConverter.LOCAL_DATE_TIME_PARSER, "2021-02-12T00:59:10", "2021-02-12T00:59", "2021-02-12t00:59",
+            "2021-02-12T00:59:10.1", "2021-02-12T00:59:10.123456789", "2021-02-12T00:59:10.", "2021-02-12T00:59:10.1234567890",
+            "2021-02-29T00:59:10", "2020-02-29T00:59:10", "2021-13-12T00:59:10", "2021-02-12T24:00", "2021-02-12 00:59:10",
+            "+12021-02-12T00:59:10", "-0001-02-12T00:59", "2021-02-12", "");
+        differential(StringConverter.REGEX_PARSER, "a.*", "[a", "");
+        Assertions.assertEquals(5, (int) StringConverter.INT_PARSER.tryConvert("x").orElse(5));
+        Assertions.assertThrows(VectorPrintRuntimeException.class, () -> StringConverter.INT_PARSER.tryConvert("x").orElseThrow());
+    }
+
+    @Test
+    public void testCachingConverter() {
+        CachingConverter<Pattern> regex = new CachingConverter<>(StringConverter.REGEX_PARSER, 16);
+        Pattern p = regex.convert("a.*");
+        Assertions.assertSame(p, regex.convert("a.*"));
+        Assertions.assertSame(p, regex.tryConvert("a.*").value());
+        Assertions.assertFalse(regex.tryConvert("[a").isSuccess());
+        CachingConverter.Stats stats = regex.stats();
+        Assertions.assertEquals(2, stats.hits());
+        Assertions.assertEquals(2, stats.misses());
+        Assertions.assertEquals(0.5, stats.hitRate());
+        Assertions.assertEquals(1, stats.size());
+
+        for (int i = 0; i < 1000; i++) {
+            regex.convert("a" + i);
+        }
+        Assertions.assertTrue(regex.size() <= 16);
+        Assertions.assertTrue(regex.stats().evictions() > 0);
+        regex.clear();
+        Assertions.assertEquals(0, regex.size());
+
+        CachingConverter<Pattern> single = new CachingConverter<>(StringConverter.REGEX_PARSER, 1);
+        for (int i = 0; i < 100; i++) {
+            single.convert("b" + i);
+        }
+        Assertions.assertEquals(1, single.size());
+        CachingConverter<Pattern> unbounded = new CachingConverter<>(StringConverter.REGEX_PARSER, Integer.MAX_VALUE);
+        Assertions.assertSame(unbounded.convert("a"), unbounded.convert("a"));
+    }
+
+    @Test
+    public void testColors() {
+        StringConverter<Color> colors = StringConverter.COLOR_PARSER;
+        Assertions.assertSame(Color.red, colors.convert("red"));
+        Assertions.assertSame(Color.LIGHT_GRAY, colors.convert("LightGray"));
+        Assertions.assertSame(Color.LIGHT_GRAY, colors.convert("light_gray"));
+        Assertions.assertSame(Color.GREEN, colors.convert("green"));
+        Assertions.assertEquals(new Color(0x808080), colors.convert("gray"));
+        Assertions.assertEquals(new Color(0x663399), colors.convert("RebeccaPurple"));
+        Assertions.assertEquals(new Color(0xa9a9a9), colors.convert("darkgrey"));
+        Assertions.assertEquals(new Color(0, 0, 0, 0), colors.convert("transparent"));
+        Assertions.assertEquals(new Color(0xffffff), colors.convert("#fff"));
+        Assertions.assertEquals(new Color(0x11, 0x22, 0x33, 0x44), colors.convert("#1234"));
+        Assertions.assertEquals(new Color(0x12ab34), colors.convert("#12AB34"));
+        Assertions.assertEquals(new Color(0x12, 0xab, 0x34, 0x80), colors.convert("#12ab3480"));
+        Assertions.assertEquals(Color.decode("#ff"), colors.convert("#ff"));
+        // lengths 3, 4 and 8 used to be decoded as rgb number
+        Assertions.assertEquals(new Color(0x7f, 0xff, 0xff, 0xff), colors.convert("#7fffffff"));
+        Assertions.assertNotEquals(Color.decode("#7fffffff"), colors.convert("#7fffffff"));
+        Assertions.assertNotEquals(Color.decode("#1234"), colors.convert("#1234"));
+        Assertions.assertEquals(Color.decode("#12345"), colors.convert("#12345"));
+        Assertions.assertThrows(NumberFormatException.class, () -> colors.convert("#12345g"));
+        Assertions.assertThrows(VectorPrintRuntimeException.class, () -> colors.convert("nocolor"));
+    }
+
+    @Test
+    public void testFloatingPointAgainstJdk() {
+        List<String> values = new ArrayList<>(List.of("0", "-0", "+0.0", "-0.0e5", "12.5", "0.75", "-0.75", ".5", "5.", "1e22",
+            "1e23", "1e-22", "1e-23", "999999999999999", "9999999999999999", "123456789012345e-22", "0.1", "0.2", "0.3",
+            "1.7976931348623157e308", "4.9e-324", "3.4028235e38", "1.4e-45", "16777217", "9007199254740993",
+            "0.000000000000000000000000000001", "00000000000000000000012.5", "1e0000000000000000000001"));
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) {
+                sb.append('-');
+            }
+            int intDigits = random.nextInt(10);
+            int fracDigits = random.nextInt(10);
+            for (int d = 0; d < intDigits; d++) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            if (fracDigits > 0 || intDigits == 0) {
+                sb.append('.');
+                for (int d = 0; d < Math.max(1, fracDigits); d++) {
+                    sb.append((char) ('0' + random.nextInt(10)));
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                sb.append('e').append(random.nextInt(60) - 30);
+            }
+            values.add(sb.toString());
+        }
+        for (String val : values) {
+            Assertions.assertEquals(Double.doubleToRawLongBits(Double.parseDouble(val)),
+                Double.doubleToRawLongBits(StringConverter.DOUBLE_PARSER.convert(val)), val);
+            Assertions.assertEquals(Float.floatToRawIntBits(Float.parseFloat(val)),
+                Float.floatToRawIntBits(StringConverter.FLOAT_PARSER.convert(val)), val);
+            Assertions.assertEquals(Double.valueOf(val), StringConverter.DOUBLE_PARSER.tryConvert(val).value(), val);
+        }
+    }
+
+    @Test
+    public void testDateTime() {
+        Assertions.assertSame(StringConverter.LOCAL_DATE_PARSER, StringConverter.forClass(LocalDate.class));
+        Assertions.assertSame(StringConverter.INSTANT_PARSER, StringConverter.forClass(Instant.class));
+        Assertions.assertSame(StringConverter.DURATION_PARSER, StringConverter.forClass(Duration.class));
+        differential(StringConverter.LOCAL_DATE_PARSER, "2021-02-12", "2020-02-29", "2021-02-29", "2021-2-12", "+12021-02-12",
+            "2021-02-12T00:00", "");
+        differential(StringConverter.LOCAL_TIME_PARSER, "00:59", "00:59:10", "00:59:10.", "00:59:10.123456789",
+            "00:59:10.1234567890", "24:00", "23:60", "0:59", "");
+        differential(StringConverter.OFFSET_DATE_TIME_PARSER, "2021-02-12T00:59:10Z", "2021-02-12T00:59Z",
+            "2021-02-12T00:59:10.5+01:00", "2021-02-12T00:59:10-01:30:15", "2021-02-12T00:59:10+19:00",
+            "2021-02-12T00:59:10+18:00", "2021-02-12T00:59:10+01", "2021-02-12T00:59:10z", "2021-02-12T00:59:10", "");
+        differential(StringConverter.INSTANT_PARSER, "2021-02-12T00:59:10Z", "2021-02-12T00:59:10.123Z", "2021-02-12T00:59Z",
+            "2021-02-12T00:59:10+01:00", "2021-02-12T00:59:10", "2021-02-30T00:59:10Z", "");
+        differential(StringConverter.ZONED_DATE_TIME_PARSER, "2021-02-12T00:59:10+01:00[Europe/Amsterdam]", "2021-02-12");
+        differential(StringConverter.DURATION_PARSER, "PT1H30M", "P2D", "1H");
+        differential(new StringConverter.DateTimePatternParser<>("dd-MM-yyyy", LocalDate::from), "12-02-2021", "30-02-2021",
+            "12-02-21", "2021-02-12");
+        // fast paths against the JDK
+        for (String val : List.of("2021-02-12T00:59:10Z", "2021-02-12T00:59:10.000000001Z", "2020-02-29T23:59:59.5Z")) {
+            Assertions.assertEquals(Instant.parse(val), StringConverter.INSTANT_PARSER.convert(val));
+            Assertions.assertEquals(OffsetDateTime.parse(val), StringConverter.OFFSET_DATE_TIME_PARSER.convert(val));
+        }
+        for (String val : List.of("2021-02-12T00:59:10-01:30:15", "2021-02-12T00:59+18:00", "2021-02-12T00:59:10.12-00:00")) {
+            Assertions.assertEquals(OffsetDateTime.parse(val), StringConverter.OFFSET_DATE_TIME_PARSER.convert(val));
+        }
+        for (String val : List.of("2021-02-12T00:59", "2021-02-12T00:59:10", "0000-01-01T00:00:00.1", "9999-12-31T23:59:59.999999999")) {
+            Assertions.assertEquals(LocalDateTime.parse(val), StringConverter.LOCAL_DATE_TIME_PARSER.convert(val));
+            Assertions.assertEquals(LocalDate.parse(val.substring(0, 10)), StringConverter.LOCAL_DATE_PARSER.convert(val.substring(0, 10)));
+            Assertions.assertEquals(LocalTime.parse(val.substring(11)), StringConverter.LOCAL_TIME_PARSER.convert(val.substring(11)));
+        }
+        Assertions.assertEquals(LocalDateTime.of(2021, 2, 12, 0, 59, 10),
+            new StringConverter.DateTimePatternParser<>("yyyyMMddHHmmss", LocalDateTime::from).convert("20210212005910"));
+        Assertions.assertEquals(LocalDate.of(2021, 2, 12),
+            new StringConverter.DateTimePatternParser<>("d MMMM yyyy", Locale.GERMAN, LocalDate::from).convert("12 Februar 2021"));
+        Assertions.assertEquals(LocalDate.of(2021, 2, 12),
+            new StringConverter.DateTimePatternParser<>("d MMMM yyyy", Locale.ENGLISH, LocalDate::from).convert("12 February 2021"));
+    }
+
+    enum Size {
+        SMALL, LARGE {
+            @Override
+            public String toString() {
+                return "large";
+            }
+        }
+    }
+
+    public static class Colors extends ArrayList<Color> {
+    }
+
+    public List<Color> colorList;
+    public Map<Size, List<Integer>[]> complex;
+
+    @Test
+    public void testComposed() throws NoSuchFieldException {
+        Assertions.assertEquals(Size.SMALL, StringConverter.forClass(Size.class).convert("SMALL"));
+        Assertions.assertEquals(Size.LARGE, StringConverter.forClass(Size.LARGE.getClass()).convert("LARGE"));
+        Assertions.assertFalse(StringConverter.forClass(Size.class).tryConvert("small").isSuccess());
+        Assertions.assertSame(StringConverter.forClass(Size.class), StringConverter.forType(Size.class));
+
+        Assertions.assertArrayEquals(new int[]{1, 2, 3}, (int[]) StringConverter.forClass(int[].class).convert("1, 2,3"));
+        Assertions.assertArrayEquals(new String[0], (String[]) StringConverter.forClass(String[].class).convert(""));
+        Assertions.assertArrayEquals(new String[]{"a", "b"}, (String[]) StringConverter.forClass(String[].class).convert("a, b"));
+        Assertions.assertFalse(StringConverter.forClass(int[].class).tryConvert("1,x").isSuccess());
+
+        Type listType = StringConverterTest.class.getField("colorList").getGenericType();
+        Assertions.assertEquals(List.of(Color.red, new Color(0xffffff)), StringConverter.forType(listType).convert("red, #fff"));
+        Assertions.assertSame(StringConverter.forType(listType), StringConverter.forType(listType));
+        Object colors = StringConverter.forClass(Colors.class).convert("red,blue");
+        Assertions.assertEquals(Colors.class, colors.getClass());
+        Assertions.assertEquals(List.of(Color.red, Color.blue), colors);
+
+        StringConverter<Map<Size, Integer>> map = new StringConverter.MapParser<>(StringConverter.forClass(Size.class),
+            StringConverter.INT_PARSER);
+        Assertions.assertEquals(Map.of(Size.SMALL, 1, Size.LARGE, 2), map.convert("SMALL=1, LARGE = 2"));
+        Assertions.assertFalse(map.tryConvert("SMALL").isSuccess());
+        Assertions.assertThrows(VectorPrintRuntimeException.class, () -> map.convert("SMALL"));
+
+        // separators do not nest
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> StringConverter.forType(StringConverterTest.class.getField("complex").getGenericType()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StringConverter.forClass(int[][].class));
+
+        StringConverter<?> nullable = new StringConverter.ArrayParser(int.class, v -> v.isEmpty() ? null : Integer.valueOf(v));
+        Assertions.assertThrows(VectorPrintRuntimeException.class, () -> nullable.convert("1,,2"));
+        Assertions.assertFalse(nullable.tryConvert("1,,2").isSuccess());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StringConverter.forClass(List.class));
+    }
 }
@@ -24,9 +24,25 @@ package com.vectorprint.testing;
 
 import org.opentest4j.AssertionFailedError;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
 
 /**
  * Class that supports doing assertion in a Thread. Just do
@@ -76,6 +92,13 @@ public class ThreadTester {
             runner.start();
          }
       }
+      checkAll(runners);
+   }
+
+   /**
+    * waits for the runners to finish, when one failed all others are interrupted and its Throwable is rethrown
+    */
+   private static void checkAll(Collection<Runner> runners) throws Throwable {
       // handle for the first failing thread
       Throwable failed = null;
       for (Runner r : runners) {
@@ -96,12 +119,437 @@ public class ThreadTester {
       }
    }
 
+   /**
+    * Runs the given Runnable in a Thread with a timeout, see {@link #testInThread(java.util.Collection, java.time.Duration)
+    * }.
+    *
+    * @param toRun The Runnable to run
+    * @param timeout
+    * @throws Throwable when something went wrong in the thread, or it did not finish in time
+    */
+   public static void testInThread(Runnable toRun, Duration timeout) throws Throwable {
+      if (toRun == null) {
+         return;
+      }
+      testInThread(List.of(toRun), timeout);
+   }
+
+   /**
+    * Like {@link #testInThread(java.util.Collection) }, but fails fast instead of hanging. While waiting the threads
+    * are checked for deadlocks using {@link ThreadMXBean#findDeadlockedThreads() }. When a deadlock is found or the
+    * threads did not finish in time, all threads are interrupted and an AssertionFailedError is thrown holding the
+    * deadlock information and stack traces of the threads still running. The threads are daemon threads, so threads
+    * ignoring the interrupt do not keep the JVM from exiting. A failure in one thread is rethrown
+    * without waiting for the other threads.
+    *
+    * @param toRun The Runnables to run
+    * @param timeout the maximum time to wait for all threads
+    * @throws Throwable when something went wrong in one of the threads
+    * @throws AssertionFailedError on deadlock or timeout
+    */
+   public static void testInThread(Collection<Runnable> toRun, Duration timeout) throws Throwable {
+      List<Runner> runners = new ArrayList<>(toRun == null ? 0 : toRun.size());
+      if (toRun != null) {
+         for (Runnable r : toRun) {
+            Runner runner = new Runner(r);
+            // a hanging thread must not keep the jvm alive
+            runner.setDaemon(true);
+            runners.add(runner);
+            runner.start();
+         }
+      }
+      long deadline = System.nanoTime() + timeout.toNanos();
+      for (Runner r : runners) {
+         while (r.isAlive()) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+               throw hang(runners, "not finished after " + timeout, null);
+            }
+            r.join(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMillis(left), POLL_MILLIS)));
+            for (Runner other : runners) {
+               if (other.failure != null) {
+                  runners.forEach(Thread::interrupt);
+                  throw other.failure;
+               }
+            }
+            long[] deadlocked = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+            if (deadlocked != null && runners.stream().anyMatch(t -> LongStream.of(deadlocked).anyMatch(id -> id == t.threadId()))) {
+               throw hang(runners, "deadlock", deadlocked);
+            }
+         }
+      }
+      checkAll(runners);
+   }
+
+   private static final long POLL_MILLIS = 100;
+
+   private static AssertionFailedError hang(List<Runner> runners, String reason, long[] deadlocked) {
+      StringBuilder report = new StringBuilder(reason).append(System.lineSeparator());
+      if (deadlocked != null) {
+         for (ThreadInfo info : ManagementFactory.getThreadMXBean().getThreadInfo(deadlocked, true, true)) {
+            if (info != null) {
+               report.append(info);
+            }
+         }
+      }
+      for (Runner r : runners) {
+         if (r.isAlive()) {
+            report.append('"').append(r.getName()).append("\" ").append(r.getState()).append(System.lineSeparator());
+            for (StackTraceElement el : r.getStackTrace()) {
+               report.append("\tat ").append(el).append(System.lineSeparator());
+            }
+         }
+      }
+      runners.forEach(Thread::interrupt);
+      return new AssertionFailedError(report.toString());
+   }
+
+   /**
+    * Stress mode for finding concurrency problems: per iteration a thread is started for each Runnable, all threads
+    * wait until every thread is ready and are then released at once, so the Runnables really run concurrently.
+    * Failures are handled like in {@link #testInThread(java.util.Collection) }, the Runnables should be reusable.
+    *
+    * @param toRun The Runnables to run in every iteration
+    * @param iterations the number of times to run all Runnables
+    * @param yield when true threads yield a random number of times after being released, to vary the scheduling
+    * @return the latency and throughput per iteration
+    * @throws Throwable when something went wrong in one of the threads
+    */
+   public static StressResult stress(Collection<Runnable> toRun, int iterations, boolean yield) throws Throwable {
+      List<Iteration> result = new ArrayList<>(iterations);
+      if (toRun == null || toRun.isEmpty()) {
+         return new StressResult(result);
+      }
+      for (int i = 0; i < iterations; i++) {
+         CountDownLatch ready = new CountDownLatch(toRun.size());
+         CountDownLatch start = new CountDownLatch(1);
+         List<Runner> runners = new ArrayList<>(toRun.size());
+         for (Runnable r : toRun) {
+            Runner runner = new Runner(() -> {
+               ready.countDown();
+               try {
+                  start.await();
+               } catch (InterruptedException ex) {
+                  throw new IllegalStateException("interrupted before start", ex);
+               }
+               if (yield) {
+                  for (int y = ThreadLocalRandom.current().nextInt(4); y > 0; y--) {
+                     Thread.yield();
+                  }
+               }
+               r.run();
+            });
+            runners.add(runner);
+            runner.start();
+         }
+         ready.await();
+         long begin = System.nanoTime();
+         start.countDown();
+         checkAll(runners);
+         result.add(new Iteration(runners.size(), System.nanoTime() - begin));
+      }
+      return new StressResult(result);
+   }
+
+   /**
+    * Measurement of one iteration of {@link #stress(java.util.Collection, int, boolean) }
+    *
+    * @param tasks the number of Runnables
+    * @param nanos the time from releasing the threads until all are finished
+    */
+   public record Iteration(int tasks, long nanos) {
+
+      /**
+       * @return tasks per second
+       */
+      public double throughput() {
+         return nanos == 0 ? 0 : tasks * 1e9 / nanos;
+      }
+   }
+
+   /**
+    * The result of {@link #stress(java.util.Collection, int, boolean) }, {@link #toString() } prints a table.
+    *
+    * @param iterations
+    */
+   public record StressResult(List<Iteration> iterations) {
+
+      public long minNanos() {
+         return iterations.stream().mapToLong(Iteration::nanos).min().orElse(0);
+      }
+
+      public long maxNanos() {
+         return iterations.stream().mapToLong(Iteration::nanos).max().orElse(0);
+      }
+
+      public double meanThroughput() {
+         return iterations.stream().mapToDouble(Iteration::throughput).average().orElse(0);
+      }
+
+      @Override
+      public String toString() {
+         StringBuilder sb = new StringBuilder(String.format("%10s %8s %15s %15s%n", "iteration", "tasks", "latency (us)", "tasks/s"));
+         for (int i = 0; i < iterations.size(); i++) {
+            Iteration it = iterations.get(i);
+            sb.append(String.format("%10d %8d %15.1f %15.0f%n", i + 1, it.tasks(), it.nanos() / 1e3, it.throughput()));
+         }
+         return sb.toString();
+      }
+   }
+
+   /**
+    * Measures how a task scales: for 1 up to maxThreads threads, every thread calls the task repeatedly until the
+    * duration has passed. The first measurement includes warming up of the JVM, you may want to run a throw away
+    * measurement first.
+    *
+    * @param task the task to measure, called concurrently
+    * @param maxThreads
+    * @param duration the time to run for every number of threads
+    * @return op counts and latencies per number of threads
+    * @throws Throwable when the task failed
+    */
+   public static ScalingResult measureScaling(Runnable task, int maxThreads, Duration duration) throws Throwable {
+      return measureScaling(task, maxThreads, duration.toNanos(), Long.MAX_VALUE);
+   }
+
+   /**
+    * Measures how a task scales: for 1 up to maxThreads threads, every thread calls the task opsPerThread times.
+    *
+    * @param task the task to measure, called concurrently
+    * @param maxThreads
+    * @param opsPerThread
+    * @return op counts and latencies per number of threads
+    * @throws Throwable when the task failed
+    * @see #measureScaling(java.lang.Runnable, int, java.time.Duration)
+    */
+   public static ScalingResult measureScaling(Runnable task, int maxThreads, long opsPerThread) throws Throwable {
+      return measureScaling(task, maxThreads, Long.MAX_VALUE, opsPerThread);
+   }
+
+   private static ScalingResult measureScaling(Runnable task, int maxThreads, long durationNanos, long opsPerThread) throws Throwable {
+      List<Measurement> result = new ArrayList<>(maxThreads);
+      for (int threads = 1; threads <= maxThreads; threads++) {
+         CountDownLatch ready = new CountDownLatch(threads);
+         CountDownLatch start = new CountDownLatch(1);
+         List<Runner> runners = new ArrayList<>(threads);
+         Histogram[] histograms = new Histogram[threads];
+         for (int t = 0; t < threads; t++) {
+            Histogram h = histograms[t] = new Histogram();
+            Runner runner = new Runner(() -> {
+               ready.countDown();
+               try {
+                  start.await();
+               } catch (InterruptedException ex) {
+                  throw new IllegalStateException("interrupted before start", ex);
+               }
+               long begin = System.nanoTime();
+               long now = begin;
+               for (long op = 0; op < opsPerThread && now - begin < durationNanos; op++) {
+                  task.run();
+                  long end = System.nanoTime();
+                  h.record(end - now);
+                  now = end;
+               }
+            });
+            runners.add(runner);
+            runner.start();
+         }
+         ready.await();
+         long begin = System.nanoTime();
+         start.countDown();
+         checkAll(runners);
+         long nanos = System.nanoTime() - begin;
+         Histogram all = new Histogram();
+         for (Histogram h : histograms) {
+            all.add(h);
+         }
+         result.add(new Measurement(threads, all.count, nanos,
+             all.percentile(50), all.percentile(90), all.percentile(99), all.max));
+      }
+      return new ScalingResult(result);
+   }
+
+   /**
+    * Latency histogram with buckets of 1/8 of a power of two, so percentiles are accurate to about 12%. Recording is
+    * an array increment.
+    */
+   private static final class Histogram {
+
+      private final long[] counts = new long[64 * 8];
+      private long count;
+      private long max;
+
+      private static int index(long nanos) {
+         if (nanos < 8) {
+            return (int) Math.max(0, nanos);
+         }
+         int e = 63 - Long.numberOfLeadingZeros(nanos);
+         return (e - 2) * 8 + (int) ((nanos >>> (e - 3)) & 7);
+      }
+
+      private static long lowerBound(int index) {
+         if (index < 8) {
+            return index;
+         }
+         int e = index / 8 + 2;
+         return (1L << e) + ((long) (index % 8) << (e - 3));
+      }
+
+      private void record(long nanos) {
+         counts[index(nanos)]++;
+         count++;
+         max = Math.max(max, nanos);
+      }
+
+      private void add(Histogram other) {
+         for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+         }
+         count += other.count;
+         max = Math.max(max, other.max);
+      }
+
+      private long percentile(double percentile) {
+         long rank = (long) Math.ceil(count * percentile / 100);
+         long seen = 0;
+         for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+               return lowerBound(i);
+            }
+         }
+         return 0;
+      }
+   }
+
+   /**
+    * Measurement for one number of threads in {@link #measureScaling(java.lang.Runnable, int, java.time.Duration) }
+    *
+    * @param threads
+    * @param ops the number of times the task was called by all threads together
+    * @param nanos the time from starting the threads until all are finished
+    * @param p50 median latency of a call in nanoseconds
+    * @param p90
+    * @param p99
+    * @param max
+    */
+   public record Measurement(int threads, long ops, long nanos, long p50, long p90, long p99, long max) {
+
+      /**
+       * @return ops per second
+       */
+      public double throughput() {
+         return nanos == 0 ? 0 : ops * 1e9 / nanos;
+      }
+   }
+
+   /**
+    * The result of {@link #measureScaling(java.lang.Runnable, int, java.time.Duration) }, {@link #toString() } prints
+    * a table including the speedup compared to one thread, {@link #toCsv() } is meant for tracking in CI.
+    *
+    * @param measurements
+    */
+   public record ScalingResult(List<Measurement> measurements) {
+
+      public String toCsv() {
+         StringBuilder sb = new StringBuilder("threads,ops,nanos,ops_per_second,p50_ns,p90_ns,p99_ns,max_ns\n");
+         for (Measurement m : measurements) {
+            sb.append(String.format(Locale.ROOT, "%d,%d,%d,%.0f,%d,%d,%d,%d%n",
+                m.threads(), m.ops(), m.nanos(), m.throughput(), m.p50(), m.p90(), m.p99(), m.max()));
+         }
+         return sb.toString();
+      }
+
+      @Override
+      public String toString() {
+         StringBuilder sb = new StringBuilder(String.format("%8s %12s %15s %8s %10s %10s %10s %12s%n",
+             "threads", "ops", "ops/s", "speedup", "p50 (ns)", "p90 (ns)", "p99 (ns)", "max (ns)"));
+         double base = measurements.isEmpty() ? 0 : measurements.get(0).throughput();
+         for (Measurement m : measurements) {
+            sb.append(String.format("%8d %12d %15.0f %8.2f %10d %10d %10d %12d%n", m.threads(), m.ops(), m.throughput(),
+                base == 0 ? 0 : m.throughput() / base, m.p50(), m.p90(), m.p99(), m.max()));
+         }
+         return sb.toString();
+      }
+   }
+
+   /**
+    * Runs the given Runnables in virtual threads, waits for them to finish and rethrows the first Throwable caught.
+    * When a Throwable is caught all other threads will be interrupted. Use this for large numbers of tasks.
+    *
+    * @param toRun The Runnables to run
+    * @throws Throwable when something went wrong in one of the threads
+    */
+   public static void testInVirtualThreads(Collection<Runnable> toRun) throws Throwable {
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+         testInThread(toRun, executor);
+      }
+   }
+
+   /**
+    * Runs the given Runnables using an executor, waits for them to finish and rethrows the first Throwable caught, in
+    * the order of the Runnables. When a Throwable is caught all other tasks will be cancelled and interrupted, tasks
+    * not yet started will not run, failures of tasks that finished are added as suppressed exceptions. This method
+    * returns after all started tasks finished, so the executor can be reused. The executor is not shut down.
+    *
+    * @param toRun The Runnables to run
+    * @param executor
+    * @throws Throwable when something went wrong in one of the tasks
+    */
+   public static void testInThread(Collection<Runnable> toRun, ExecutorService executor) throws Throwable {
+      if (toRun == null) {
+         return;
+      }
+      // counted down once per task, when it finished or when it was claimed before it started
+      CountDownLatch finished = new CountDownLatch(toRun.size());
+      List<AtomicBoolean> claims = new ArrayList<>(toRun.size());
+      List<Future<?>> futures = new ArrayList<>(toRun.size());
+      for (Runnable r : toRun) {
+         AtomicBoolean claimed = new AtomicBoolean();
+         claims.add(claimed);
+         futures.add(executor.submit(() -> {
+            if (claimed.compareAndSet(false, true)) {
+               try {
+                  r.run();
+               } finally {
+                  finished.countDown();
+               }
+            }
+         }));
+      }
+      Throwable failed = null;
+      for (Future<?> f : futures) {
+         try {
+            f.get();
+         } catch (ExecutionException e) {
+            failed = e.getCause();
+         } catch (InterruptedException e) {
+            failed = e;
+         }
+         if (failed != null) {
+            for (int i = 0; i < futures.size(); i++) {
+               if (claims.get(i).compareAndSet(false, true)) {
+                  finished.countDown();
+               }
+               futures.get(i).cancel(true);
+            }
+            finished.await();
+            for (Future<?> other : futures) {
+               if (other.state() == Future.State.FAILED && other.exceptionNow() != failed) {
+                  failed.addSuppressed(other.exceptionNow());
+               }
+            }
+            throw failed;
+         }
+      }
+   }
+
    /**
     * private class that calls the run() method of its containing Runnable in a new Thread. It captures all Throwable.
     */
    private static class Runner extends Thread {
 
-      private Throwable failure = null;
+      private volatile Throwable failure = null;
       private final Runnable myRunnable;
 
       private Runner(Runnable toRun) {
@@ -139,12 +587,12 @@ public class ThreadTester {
             return false;
          }
          final Runner other = (Runner) obj;
-         return other.getId() == getId();
+         return other.threadId() == threadId();
       }
 
       @Override
       public int hashCode() {
-         return (int) (getId() ^ (getId() >>> 32));
+         return (int) (threadId() ^ (threadId() >>> 32));
       }
    }
 }